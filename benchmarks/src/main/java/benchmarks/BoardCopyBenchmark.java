@@ -0,0 +1,52 @@
+package benchmarks;
+
+import chess.ChessBoard;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times copying a board, which happens for every game snapshot
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoardCopyBenchmark {
+
+    @Param({"OPENING", "MIDDLEGAME", "ENDGAME"})
+    public Positions position;
+
+    private ChessBoard board;
+
+    @Setup
+    public void setUp() {
+        board = position.load().getBoard();
+        // build the bitboards up front so copy() has them to carry over
+        board.hashCode();
+    }
+
+    @Benchmark
+    public ChessBoard copy() {
+        return new ChessBoard(board.getBoard());
+    }
+
+    /**
+     * A copy followed by the first hash of it, which builds its bitboards
+     */
+    @Benchmark
+    public int copyAndHash() {
+        return new ChessBoard(board.getBoard()).hashCode();
+    }
+
+    /**
+     * A copy that carries over the bitboards of the original, so hashing it
+     * does not rebuild them
+     */
+    @Benchmark
+    public int copyKeepingBitBoard() {
+        return board.copy().hashCode();
+    }
+}
@@ -0,0 +1,90 @@
+package benchmarks;
+
+import chess.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the ChessGame operations the server runs for every MAKE_MOVE
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameBenchmark {
+
+    @Param({"OPENING", "MIDDLEGAME", "ENDGAME"})
+    public Positions position;
+
+    private ChessGame game;
+    private ChessMove move;
+    private ChessPosition[] pieces;
+    private int[] buffer;
+
+    @Setup
+    public void setUp() {
+        game = position.load();
+        buffer = new int[MoveGenerator.MAX_MOVES];
+        game.legalMoves(buffer);
+        move = PackedMove.toChessMove(buffer[0]);
+
+        // every square holding a piece of the side to move, like a client asking for highlights
+        long team = game.getBoard().getBitBoard().occupancy(game.getTeamTurn());
+        pieces = new ChessPosition[Long.bitCount(team)];
+        for (int i = 0; team != 0; i++) {
+            int square = Long.numberOfTrailingZeros(team);
+            team &= team - 1;
+            pieces[i] = ChessPosition.of(square);
+        }
+    }
+
+    /**
+     * Validates and plays a move (which regenerates the legal moves of the
+     * position), then takes it back so every invocation starts from the same place
+     */
+    @Benchmark
+    public ChessGame makeMove() throws InvalidMoveException {
+        game.makeMove(move);
+        game.undoMove();
+        return game;
+    }
+
+    /**
+     * validMoves for every piece of the side to move, as served to clients
+     */
+    @Benchmark
+    public int validMoves() {
+        int total = 0;
+        for (ChessPosition piece : pieces) {
+            Collection<ChessMove> moves = game.validMoves(piece);
+            total += moves.size();
+        }
+        return total;
+    }
+
+    /**
+     * A full legal move generation pass without the per-position cache
+     */
+    @Benchmark
+    public int generateLegalMoves() {
+        return game.generateLegalMoves(buffer);
+    }
+
+    @Benchmark
+    public boolean isInCheck() {
+        return game.isInCheck(game.getTeamTurn());
+    }
+
+    /**
+     * Checkmate for the side to move is answered from the status cached with
+     * the position's legal moves, so this is the cost of a repeated query
+     */
+    @Benchmark
+    public boolean isInCheckmate() {
+        return game.isInCheckmate(game.getTeamTurn());
+    }
+}
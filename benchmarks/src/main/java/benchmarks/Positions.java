@@ -0,0 +1,26 @@
+package benchmarks;
+
+import chess.ChessGame;
+import chess.Fen;
+
+/**
+ * Realistic positions from each phase of a game, shared by the benchmarks
+ */
+public enum Positions {
+    // Ruy Lopez after 3.Bb5, black to move
+    OPENING("r1bqkbnr/pppp1ppp/2n5/1B2p3/4P3/5N2/PPPP1PPP/RNBQK2R b KQkq - 3 3"),
+    // both sides developed with pieces pinned and trading options everywhere
+    MIDDLEGAME("r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10"),
+    // rook endgame with a few pawns left
+    ENDGAME("8/5pk1/6p1/8/3R4/6P1/5PK1/3r4 w - - 0 40");
+
+    public final String fen;
+
+    Positions(String fen) {
+        this.fen = fen;
+    }
+
+    public ChessGame load() {
+        return Fen.parse(fen);
+    }
+}
@@ -85,7 +85,7 @@ public class DrawChessGame {
     }
 
     private void drawSquare(int row, int col) {
-        ChessPosition currentPos = new ChessPosition(row, col);
+        ChessPosition currentPos = ChessPosition.of(row, col);
         boolean lightSquare = (row + col) % 2 != 0;
         String squareBG = lightSquare ? SET_BG_COLOR_WHITE : SET_BG_COLOR_BLACK;
 
@@ -101,7 +101,7 @@ public class DrawChessGame {
             }
         }
 
-        ChessPiece piece = board.getPiece(new ChessPosition(row, col));
+        ChessPiece piece = board.getPiece(ChessPosition.of(row, col));
 
         System.out.print(squareBG);
 
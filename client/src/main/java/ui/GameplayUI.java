@@ -202,6 +202,10 @@ public class GameplayUI implements NotificationHandler {
 
         try {
             var validMoves = game.validMoves(position);
+            if (validMoves == null) {
+                System.out.println(SET_TEXT_COLOR_MAGENTA + "No chess piece in that position." + RESET_TEXT_COLOR);
+                return;
+            }
             DrawChessGame drawBoard = new DrawChessGame();
             drawBoard.drawWithHighlights(validMoves);
             boolean whitePerspective = (playerColor.equals(ChessGame.TeamColor.WHITE) || playerColor == null);
@@ -226,7 +230,7 @@ public class GameplayUI implements NotificationHandler {
         int colNum = col - 'a' + 1;
         int rowNum = row - '0';
 
-        return new ChessPosition(rowNum, colNum);
+        return ChessPosition.of(rowNum, colNum);
     }
 
     public ChessPiece.PieceType parsePromotion(String promotion) {
@@ -62,6 +62,7 @@ public class Server {
         server.delete("/session", this::handleLogout);
         server.post("/game", this::handleCreateGame);
         server.put("/game", this::handleJoinGame);
+        server.put("/game/computer", this::handleJoinComputer);
         server.get("/game", this::handleListGames);
 
     }
@@ -123,6 +124,14 @@ public class Server {
     }
 
     private void handleJoinGame(Context ctx) {
+        handleJoin(ctx, false);
+    }
+
+    private void handleJoinComputer(Context ctx) {
+        handleJoin(ctx, true);
+    }
+
+    private void handleJoin(Context ctx, boolean computer) {
         var serializer = new Gson();
         var req = serializer.fromJson(ctx.body(), Map.class);
         String authToken = ctx.header("authorization");
@@ -141,7 +150,11 @@ public class Server {
             if (playerColor == null) {
                 throw new DataAccessException("bad request: Please include a player color");
             }
-            gameService.joinGame(authToken, gameID, playerColor);
+            if (computer) {
+                gameService.joinComputer(authToken, gameID, playerColor);
+            } else {
+                gameService.joinGame(authToken, gameID, playerColor);
+            }
             ctx.status(200);
             ctx.result("{}");
         } catch (DataAccessException e) {
@@ -0,0 +1,84 @@
+package server.websocket;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.Search;
+import chess.TranspositionTable;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Works out the moves of the server's computer player.
+ * <p>
+ * A search runs for up to its whole time budget, so it happens on a small
+ * pool of threads kept for the computer and never on the WebSocket thread
+ * that received the opponent's move. Each game has at most one search
+ * running at a time.
+ * <p>
+ * Each pool thread has its own transposition table, split from the memory
+ * the computer was given, so it does not grow with the number of games.
+ * Games searched at the same time never age out each other's entries or
+ * see each other's draw-by-repetition scores; a table is only reused by the
+ * next game its thread searches.
+ */
+public class ComputerOpponent {
+
+    private final long moveMillis;
+    private final ExecutorService executor;
+    // a Search keeps buffers and a table between moves and is not thread-safe, so each pool thread has one
+    private final ThreadLocal<Search> searches;
+    private final Set<Integer> thinking = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param moveMillis     how long the computer may think about each move
+     * @param threads        how many games the computer can think about at once
+     * @param searchThreads  how many threads search each of those games
+     * @param tableMegabytes memory for transposition tables, split evenly between the threads
+     */
+    public ComputerOpponent(long moveMillis, int threads, int searchThreads, int tableMegabytes) {
+        this.moveMillis = moveMillis;
+        int megabytesPerThread = Math.max(1, tableMegabytes / threads);
+        this.searches = ThreadLocal.withInitial(
+                () -> new Search(searchThreads, new TranspositionTable(megabytesPerThread)));
+        this.executor = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "computer-opponent");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts thinking about the computer's move in a game and returns at once.
+     * Does nothing if the computer is already thinking about that game.
+     *
+     * @param gameID  the game to move in
+     * @param game    the game as it stands, which is searched on a copy
+     * @param reply   called from the computer's own thread with the chosen move
+     * @param failure called from the computer's own thread if the search fails
+     */
+    public void think(int gameID, ChessGame game, Consumer<ChessMove> reply, Consumer<Exception> failure) {
+        if (!thinking.add(gameID)) {
+            return;
+        }
+        executor.execute(() -> {
+            ChessMove move;
+            try {
+                move = searches.get().bestMove(game, moveMillis);
+            } catch (RuntimeException e) {
+                // a task's exception would otherwise die with the pool thread unseen
+                System.err.println("Computer search failed in game " + gameID + ": " + e);
+                failure.accept(e);
+                return;
+            } finally {
+                thinking.remove(gameID);
+            }
+            if (move != null) {
+                reply.accept(move);
+            }
+        });
+    }
+}
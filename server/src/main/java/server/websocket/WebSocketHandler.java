@@ -8,8 +8,10 @@ import websocket.commands.*;
 import websocket.messages.*;
 import chess.ChessGame;
 import chess.ChessMove;
+import chess.InvalidMoveException;
 import dataaccess.*;
 import model.*;
+import service.GameService;
 
 import java.io.IOException;
 import websocket.messages.Error;
@@ -17,10 +19,23 @@ import websocket.messages.Error;
 public class WebSocketHandler implements WsConnectHandler, WsCloseHandler, WsMessageHandler {
 
     private final ConnectionManager connections = new ConnectionManager();
+    private final ComputerOpponent computer = new ComputerOpponent(
+            Long.getLong("chess.computer.moveMillis", 1000),
+            Integer.getInteger("chess.computer.threads", 2),
+            Integer.getInteger("chess.computer.searchThreads", 1),
+            Integer.getInteger("chess.computer.hashMegabytes", 64));
+    // Every change to a game is a load, check and save, so changes to the same game
+    // (player moves, computer moves, resigning, leaving) take turns on its lock.
+    // Games share a fixed set of locks, so nothing has to be cleaned up when a game ends
+    private static final int GAME_LOCKS = 64;
+    private final Object[] gameLocks = new Object[GAME_LOCKS];
     private MySQLDataAccess dataAccess;
 
     public WebSocketHandler(MySQLDataAccess dataAccess) {
         this.dataAccess = dataAccess;
+        for (int i = 0; i < gameLocks.length; i++) {
+            gameLocks[i] = new Object();
+        }
     }
 
     @Override
@@ -87,6 +102,10 @@ public class WebSocketHandler implements WsConnectHandler, WsCloseHandler, WsMes
             Notification notification = new Notification(notificationText);
             connections.broadcast(command.getGameID(), command.getAuthToken(), notification);
 
+            // A computer seated on the side to move, for example as WHITE at the start, moves now
+            if (isComputerTurn(gameData) && !gameData.game().status().isOver()) {
+                computerReply(gameData);
+            }
 
         } catch (Exception e) {
             sendError(session, "Error: " + e.getMessage());
@@ -106,68 +125,124 @@ public class WebSocketHandler implements WsConnectHandler, WsCloseHandler, WsMes
             }
             String username = auth.username();
 
-            // Get game
-            GameData gameData = dataAccess.getGame(command.getGameID());
-            if (gameData == null) {
-                throw new DataAccessException("Invalid game ID");
-            }
-            ChessGame game = gameData.game();
-
-            // Check if game is over
-            if (game.isGameOver() || isGameOver(game)) {
-                throw new IllegalStateException("Game is over");
+            synchronized (lockFor(command.getGameID())) {
+                // Get game
+                GameData gameData = dataAccess.getGame(command.getGameID());
+                if (gameData == null) {
+                    throw new DataAccessException("Invalid game ID");
+                }
+                ChessGame game = gameData.game();
+
+                // Check if game is over
+                if (game.isGameOver() || game.status().isOver()) {
+                    throw new IllegalStateException("Game is over");
+                }
+
+                // Verify player is making the move
+                String playerColor = determinePlayerColor(gameData, username);
+                if (playerColor == null) {
+                    throw new IllegalStateException("Observers cannot make moves");
+                }
+
+                // Verify it's their turn
+                ChessGame.TeamColor playerTurn = gameData.game().getTeamTurn();
+                if (!playerColor.equalsIgnoreCase(playerTurn.toString())) {
+                    throw new IllegalStateException("It is not your turn");
+                }
+
+                playMove(gameData, username, move, command.getAuthToken());
             }
 
-            // Verify player is making the move
-            String playerColor = determinePlayerColor(gameData, username);
-            if (playerColor == null) {
-                throw new IllegalStateException("Observers cannot make moves");
-            }
-
-            // Verify it's their turn
-            ChessGame.TeamColor playerTurn = gameData.game().getTeamTurn();
-            if (!playerColor.equalsIgnoreCase(playerTurn.toString())) {
-                throw new IllegalStateException("It is not your turn");
-            }
-
-            // Make the move (throws InvalidMoveException if illegal)
-            game.makeMove(move);
-
-            // Update game in database
-            dataAccess.update(gameData);
-
-            // Send LOAD_GAME to all clients
-            LoadGame loadGameMsg = new LoadGame(game);
-            connections.broadcastToAll(gameData.gameID(), loadGameMsg);
-
-            // Send move NOTIFICATION to other clients
-            String moveText = String.format("%s has moved from %s to %s",
-                    username,
-                    move.getStartPosition(),
-                    move.getEndPosition()
-                    );
-            Notification notification = new Notification(moveText);
-            connections.broadcast(command.getGameID(), command.getAuthToken(), notification);
+        } catch (Exception e) {
+            sendError(session, "Error: " + e.getMessage());
+        }
+    }
 
-            // Check for check, checkmate, stalemate
-            ChessGame.TeamColor opponentColor = (playerTurn == ChessGame.TeamColor.WHITE)
-                    ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    /**
+     * Plays a move that has been checked to be the mover's, saves the game and
+     * tells every connection about it. If the computer holds the seat now on
+     * move, it starts thinking about its reply.
+     *
+     * @param authToken the mover's connection, which is not sent the move notification,
+     *                  or null for the computer
+     */
+    private void playMove(GameData gameData, String username, ChessMove move, String authToken)
+            throws InvalidMoveException, DataAccessException, IOException {
+        ChessGame game = gameData.game();
+
+        // Make the move (throws InvalidMoveException if illegal)
+        game.makeMove(move);
+
+        // End the game for good if that move finished it, draws included
+        ChessGame.GameStatus status = game.status();
+        if (status.isOver()) {
+            game.setGameOver();
+        }
 
-            if (game.isInCheckmate(opponentColor)) {
+        // Update game in database
+        dataAccess.update(gameData);
+
+        // Send LOAD_GAME to all clients
+        LoadGame loadGameMsg = new LoadGame(game);
+        connections.broadcastToAll(gameData.gameID(), loadGameMsg);
+
+        // Send move NOTIFICATION to other clients
+        String moveText = String.format("%s has moved from %s to %s",
+                username,
+                move.getStartPosition(),
+                move.getEndPosition()
+                );
+        Notification notification = new Notification(moveText);
+        connections.broadcast(gameData.gameID(), authToken, notification);
+
+        // Check for check, checkmate, stalemate or a draw (one pass, for the side now on move)
+        ChessGame.TeamColor opponentColor = game.getTeamTurn();
+        switch (status) {
+            case CHECKMATE -> {
                 String checkmate = String.format("%s is in checkmate", opponentColor);
-                connections.broadcastToAll(command.getGameID(), new Notification(checkmate));
-            } else if (game.isInCheckmate(opponentColor)) {
-                connections.broadcastToAll(command.getGameID(), new Notification("Stalemate!"));
-            } else if (game.isInCheck(opponentColor)) {
+                connections.broadcastToAll(gameData.gameID(), new Notification(checkmate));
+            }
+            case STALEMATE -> connections.broadcastToAll(gameData.gameID(), new Notification("Stalemate!"));
+            case THREEFOLD_REPETITION -> connections.broadcastToAll(gameData.gameID(),
+                    new Notification("Draw by threefold repetition"));
+            case FIFTY_MOVE_RULE -> connections.broadcastToAll(gameData.gameID(),
+                    new Notification("Draw by the fifty-move rule"));
+            case CHECK -> {
                 String check = String.format("%s is in check", opponentColor);
-                connections.broadcastToAll(command.getGameID(), new Notification(check));
+                connections.broadcastToAll(gameData.gameID(), new Notification(check));
             }
+            default -> { }
+        }
 
-        } catch (Exception e) {
-            sendError(session, "Error: " + e.getMessage());
+        if (!status.isOver() && isComputerTurn(gameData)) {
+            computerReply(gameData);
         }
     }
 
+    /**
+     * Has the computer think about its move in the background, then plays it
+     * unless the game has moved on in the meantime. The check and the move
+     * happen under the game's lock, so a resign or leave that lands during
+     * the search is never overwritten.
+     */
+    private void computerReply(GameData gameData) {
+        int gameID = gameData.gameID();
+        int plies = gameData.game().getMoveCount();
+        computer.think(gameID, gameData.game(), move -> {
+            try {
+                synchronized (lockFor(gameID)) {
+                    GameData current = dataAccess.getGame(gameID);
+                    // isComputerTurn also checks that nobody ended the game while the computer thought
+                    if (current != null && isComputerTurn(current) && current.game().getMoveCount() == plies) {
+                        playMove(current, GameService.COMPUTER_USERNAME, move, null);
+                    }
+                }
+            } catch (Exception e) {
+                sendGameError(gameID, "Error: the computer could not move: " + e.getMessage());
+            }
+        }, e -> sendGameError(gameID, "Error: the computer could not choose a move: " + e.getMessage()));
+    }
+
     private void leave(UserGameCommand command, Session session) {
         try {
             // Validate user
@@ -177,15 +252,17 @@ public class WebSocketHandler implements WsConnectHandler, WsCloseHandler, WsMes
             }
             String username = auth.username();
 
-            // Get game
-            GameData gameData = dataAccess.getGame(command.getGameID());
-            if (gameData != null) {
-                // If player, remove them
-                GameData updatedGame = removePlayer(username, gameData);
-                dataAccess.update(updatedGame);
-            }
-            else {
-                throw new DataAccessException("Invalid game ID");
+            synchronized (lockFor(command.getGameID())) {
+                // Get game
+                GameData gameData = dataAccess.getGame(command.getGameID());
+                if (gameData != null) {
+                    // If player, remove them
+                    GameData updatedGame = removePlayer(username, gameData);
+                    dataAccess.update(updatedGame);
+                }
+                else {
+                    throw new DataAccessException("Invalid game ID");
+                }
             }
 
             // Notify other clients
@@ -210,28 +287,30 @@ public class WebSocketHandler implements WsConnectHandler, WsCloseHandler, WsMes
             }
             String username = auth.username();
 
-            // Get game
-            GameData gameData = dataAccess.getGame(command.getGameID());
-            if (gameData == null) {
-                throw new DataAccessException("Invalid game ID");
-            }
-            ChessGame game = gameData.game();
-
-            // Verify player is resigning
-            String playerColor = determinePlayerColor(gameData, username);
-            if (playerColor == null) {
-                throw new IllegalStateException("Observers cannot resign");
-            }
-
-            // Check if game is over
-            if (game.isGameOver() || isGameOver(game)) {
-                throw new IllegalStateException("Game is already over");
+            synchronized (lockFor(command.getGameID())) {
+                // Get game
+                GameData gameData = dataAccess.getGame(command.getGameID());
+                if (gameData == null) {
+                    throw new DataAccessException("Invalid game ID");
+                }
+                ChessGame game = gameData.game();
+
+                // Verify player is resigning
+                String playerColor = determinePlayerColor(gameData, username);
+                if (playerColor == null) {
+                    throw new IllegalStateException("Observers cannot resign");
+                }
+
+                // Check if game is over
+                if (game.isGameOver() || game.status().isOver()) {
+                    throw new IllegalStateException("Game is already over");
+                }
+
+                GameData updated = removePlayer(username, gameData);
+                updated.game().setGameOver();
+                dataAccess.update(updated);
             }
 
-            GameData updated = removePlayer(username, gameData);
-            updated.game().setGameOver();
-            dataAccess.update(updated);
-
             // Notify other clients
             String message = String.format("%s has resigned from the game", username);
             Notification notification = new Notification(message);
@@ -256,8 +335,31 @@ public class WebSocketHandler implements WsConnectHandler, WsCloseHandler, WsMes
         }
     }
 
+    /**
+     * Reports an error that no one connection caused, such as a failed computer
+     * move, to everyone in the game
+     */
+    private void sendGameError(int gameID, String message) {
+        try {
+            connections.broadcastToAll(gameID, new Error(message));
+        } catch (IOException e) {
+            System.err.println("Failed to send error: " + e.getMessage());
+        }
+    }
+
     // helper functions
 
+    private Object lockFor(int gameID) {
+        return gameLocks[Math.floorMod(gameID, GAME_LOCKS)];
+    }
+
+    private boolean isComputerTurn(GameData gameData) {
+        ChessGame game = gameData.game();
+        String username = (game.getTeamTurn() == ChessGame.TeamColor.WHITE)
+                ? gameData.whiteUsername() : gameData.blackUsername();
+        return GameService.COMPUTER_USERNAME.equals(username) && !game.isGameOver();
+    }
+
     private String determinePlayerColor(GameData gameData, String username) {
         if (username.equals(gameData.whiteUsername())) {
             return "WHITE";
@@ -267,13 +369,6 @@ public class WebSocketHandler implements WsConnectHandler, WsCloseHandler, WsMes
         return null;
     }
 
-    private boolean isGameOver(ChessGame game) {
-        return game.isInCheckmateHelper(ChessGame.TeamColor.WHITE, game.getTeamTurn()) ||
-                game.isInCheckmateHelper(ChessGame.TeamColor.BLACK, game.getTeamTurn()) ||
-                game.isInStalemateHelper(ChessGame.TeamColor.WHITE, game.getTeamTurn()) ||
-                game.isInStalemateHelper(ChessGame.TeamColor.BLACK, game.getTeamTurn());
-    }
-
     private GameData removePlayer(String username, GameData gameData) {
         if (username.equals(gameData.whiteUsername())) {
             return new GameData(gameData.gameID(), null, gameData.blackUsername(), gameData.gameName(), gameData.game());
@@ -10,6 +10,9 @@ import javax.xml.crypto.Data;
 import java.util.List;
 
 public class GameService {
+    // the seat name of the server's own computer player, which no user may register
+    public static final String COMPUTER_USERNAME = "computer";
+
     private final DataAccess dataAccess;
     private int nextGameID = 100;
 
@@ -30,7 +33,44 @@ public class GameService {
     }
 
     public void joinGame(String authToken, int gameID, String playerColor) throws DataAccessException {
-        String newPlayer = verifyUser(authToken);
+        seatPlayer(verifyUser(authToken), gameID, playerColor);
+    }
+
+    /**
+     * Seats the computer player in a game, so the server answers every move
+     * made against that color. Only the player already sitting in the other
+     * seat may ask, so the computer never plays a game nobody is playing.
+     *
+     * @param authToken   the user asking for a computer opponent
+     * @param gameID      the game to seat it in
+     * @param playerColor WHITE or BLACK
+     */
+    public void joinComputer(String authToken, int gameID, String playerColor) throws DataAccessException {
+        String username = verifyUser(authToken);
+        GameData game = dataAccess.getGame(gameID);
+        if (game == null) {
+            throw new DataAccessException("bad request : Game does not exist.");
+        }
+        String opponent;
+        if (playerColor.equals("WHITE")) {
+            opponent = game.blackUsername();
+        }
+        else if (playerColor.equals("BLACK")) {
+            opponent = game.whiteUsername();
+        }
+        else {
+            throw new DataAccessException("bad request : Invalid player color.");
+        }
+        if (COMPUTER_USERNAME.equals(opponent)) {
+            throw new DataAccessException("The computer already plays the other color");
+        }
+        if (!username.equals(opponent)) {
+            throw new DataAccessException("User unauthorized: join the other color before asking for a computer opponent");
+        }
+        seatPlayer(COMPUTER_USERNAME, gameID, playerColor);
+    }
+
+    private void seatPlayer(String newPlayer, int gameID, String playerColor) throws DataAccessException {
         GameData game = dataAccess.getGame(gameID);
         if (game == null) {
             throw new DataAccessException("bad request : Game does not exist.");
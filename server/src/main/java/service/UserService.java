@@ -19,7 +19,7 @@ public class UserService {
             throw new DataAccessException("Error: bad request");
         }
         UserData user = dataAccess.getUser(username);
-        if (user != null) {
+        if (user != null || username.equals(GameService.COMPUTER_USERNAME)) {
             throw new DataAccessException("Error: already taken");
         }
         user = new UserData(username, password);
@@ -123,6 +123,50 @@ public class GameServiceTest {
         assertThrows(DataAccessException.class, () -> gameService.joinGame(authToken, 95, "WHITE"));
     }
 
+    @Test
+    public void joinComputerAsBlack() throws DataAccessException {
+        var result = gameService.createGame(authToken, "testgame");
+        gameService.joinGame(authToken, result.gameID(), "WHITE");
+
+        gameService.joinComputer(authToken, result.gameID(), "BLACK");
+
+        assertEquals(GameService.COMPUTER_USERNAME, dataAccess.getGame(result.gameID()).blackUsername());
+    }
+
+    @Test
+    public void joinComputerTakenColor() throws DataAccessException {
+        var result = gameService.createGame(authToken, "testgame");
+        gameService.joinGame(authToken, result.gameID(), "WHITE");
+
+        assertThrows(DataAccessException.class, () -> gameService.joinComputer(authToken, result.gameID(), "WHITE"));
+        assertThrows(DataAccessException.class, () -> gameService.joinComputer("fakeAuth", result.gameID(), "BLACK"));
+    }
+
+    @Test
+    public void joinComputerWithoutOtherSeat() throws DataAccessException {
+        var result = gameService.createGame(authToken, "testgame");
+        String otherToken = userService.register("otheruser", "password123").authToken();
+        gameService.joinGame(otherToken, result.gameID(), "WHITE");
+
+        // neither an empty game nor someone else's game can be given a computer
+        assertThrows(DataAccessException.class, () -> gameService.joinComputer(authToken, result.gameID(), "BLACK"));
+        var empty = gameService.createGame(authToken, "emptygame");
+        assertThrows(DataAccessException.class, () -> gameService.joinComputer(authToken, empty.gameID(), "BLACK"));
+        assertNull(dataAccess.getGame(result.gameID()).blackUsername());
+        assertNull(dataAccess.getGame(empty.gameID()).blackUsername());
+    }
+
+    @Test
+    public void joinComputerAgainstComputer() throws DataAccessException {
+        var result = gameService.createGame(authToken, "testgame");
+        // the computer holds black and white is free, as after its opponent left
+        GameData game = dataAccess.getGame(result.gameID());
+        dataAccess.update(new GameData(game.gameID(), null, GameService.COMPUTER_USERNAME, game.gameName(), game.game()));
+
+        assertThrows(DataAccessException.class, () -> gameService.joinComputer(authToken, result.gameID(), "WHITE"));
+        assertNull(dataAccess.getGame(result.gameID()).whiteUsername());
+    }
+
     // List Games Test
     @Test
     public void listGamesMultipleGames () throws DataAccessException {
@@ -0,0 +1,280 @@
+package chess;
+
+/**
+ * Answers "which squares does a piece on this square attack" as bitboard
+ * masks, and uses those masks in reverse to find out whether a square is
+ * attacked: a square is attacked by an enemy knight exactly when a knight
+ * standing on it would attack that enemy knight, and the same holds for
+ * every other piece type.
+ */
+public final class Attacks {
+
+    // directions each piece can move, as {row change, column change}
+    private static final int[][] KING_DIRECTIONS = {{1,-1}, {1,0}, {1,1}, {0,1}, {-1,1}, {-1,0}, {-1,-1}, {0,-1}};
+    private static final int[][] KNIGHT_DIRECTIONS = {{1,-2}, {2,-1}, {2,1}, {1,2}, {-1,2}, {-2,1}, {-2,-1}, {-1,-2}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1,-1}, {1,1}, {-1,1}, {-1,-1}};
+    private static final int[][] ROOK_DIRECTIONS = {{0,-1}, {1,0}, {0,1}, {-1,0}};
+    private static final int[][] WHITE_PAWN_CAPTURES = {{1,-1}, {1,1}};
+    private static final int[][] BLACK_PAWN_CAPTURES = {{-1,-1}, {-1,1}};
+
+    // attack masks of the pieces whose moves do not depend on the rest of the
+    // board, worked out once per square when the class loads
+    private static final long[] KNIGHT = new long[64];
+    private static final long[] KING = new long[64];
+    private static final long[][] PAWN = new long[2][64];
+
+    // squares strictly between two squares on the same row, column or diagonal
+    private static final long[][] BETWEEN = new long[64][64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            initBetween(square);
+            KNIGHT[square] = steps(square, KNIGHT_DIRECTIONS);
+            KING[square] = steps(square, KING_DIRECTIONS);
+            PAWN[ChessGame.TeamColor.WHITE.ordinal()][square] = steps(square, WHITE_PAWN_CAPTURES);
+            PAWN[ChessGame.TeamColor.BLACK.ordinal()][square] = steps(square, BLACK_PAWN_CAPTURES);
+        }
+    }
+
+    // magic bitboard tables for sliding pieces: the squares that can block a
+    // slider from a square are masked out of the occupancy, multiplied by a
+    // magic number that maps every possible blocker pattern to its own index,
+    // and the attacks for that pattern are read from a table. The magic
+    // numbers were found by a random search; searching at startup takes
+    // about a second, so the results are written out here
+    private static final long[] ROOK_MAGICS = {
+            0x0080008420144000L, 0x0140001000402000L, 0x8100200100081040L, 0x0580100181040800L,
+            0x0480040002480180L, 0x020002001004C108L, 0x06002600180104ACL, 0x0A00010200804024L,
+            0x1102800320814002L, 0xC000808040002000L, 0x0202802000821000L, 0x4210800800801000L,
+            0x8008808044004800L, 0x0006002418100200L, 0x0A00800200010080L, 0x0202000208804114L,
+            0x0280044002200041L, 0x3010004020004008L, 0x0010002008040022L, 0x8000210008100102L,
+            0x60A2020004110820L, 0x0222008080040002L, 0x00C0840002085110L, 0x02004A0000810454L,
+            0x0080401080008020L, 0x0040200040100048L, 0x0006041200208040L, 0x2010100100210008L,
+            0x5090080080800400L, 0x0022002200042950L, 0x011010040002E108L, 0x0000240200009041L,
+            0x0010400020800080L, 0x0040401000402000L, 0x0200200080801000L, 0x4140080080801003L,
+            0x0000800400800800L, 0x0800040080800200L, 0x1008080284002110L, 0x00A001008A001444L,
+            0x3040002040908000L, 0x1000422010024000L, 0x0040402001010010L, 0x8000100008008080L,
+            0x0084008008028004L, 0x0002000204008080L, 0x0000088210040001L, 0x0280C12080520004L,
+            0x028700800C402B00L, 0x0180200040008080L, 0x80A0008020100080L, 0x0001012010008900L,
+            0x4000040108008180L, 0x000C000402008080L, 0x004B0002002C0900L, 0x0020D42040811200L,
+            0x8844520121004082L, 0x1109150082204001L, 0x0302000820408012L, 0x2081002208041001L,
+            0x0002000804201002L, 0x5101000A28040029L, 0x0100080112489004L, 0x02000E4400288102L
+    };
+    private static final long[] BISHOP_MAGICS = {
+            0x4014281015002108L, 0x0060020882029000L, 0x1104440082102120L, 0x4004410020042802L,
+            0x0011104020140040L, 0x0006074460005020L, 0x48208E0820040201L, 0x0202050401042240L,
+            0x400C401014208AA0L, 0x01C020064A424100L, 0x0012304408424000L, 0x21008808510C0004L,
+            0x0020141420000024L, 0x0004009004202009L, 0x4002008410080450L, 0x2000088280B82000L,
+            0x4040002410828602L, 0x08448030810A1410L, 0x1010032104008110L, 0x0850810802084244L,
+            0x0804000202112040L, 0x4901008610009420L, 0x31A0402411082800L, 0x8402000107620200L,
+            0x2210311041126208L, 0x0295218018020400L, 0x2092010408104400L, 0x0004040000401080L,
+            0x0020404004010041L, 0x80448A0109080618L, 0x008084110A0A0200L, 0x204C00C000A70440L,
+            0x3010106441114400L, 0x0C94115400181000L, 0x1821403000020400L, 0x2000020082480080L,
+            0x2080408020020200L, 0x0020080040068040L, 0x20089D8888190802L, 0x000F820044408408L,
+            0x2084022006089000L, 0x22510101A0401020L, 0x40000A0802009408L, 0x140483C010420200L,
+            0x0449200208811408L, 0x0002220042000100L, 0x00281000D0800201L, 0x044200A519010200L,
+            0x0300421050080002L, 0x00C0540401080004L, 0x4801010088040034L, 0x8400000210540051L,
+            0x400400404822002CL, 0x2080070448020000L, 0x1B2082100A00A000L, 0x4002021802108000L,
+            0xC000248800901000L, 0x0000024100B01100L, 0x1902103044022100L, 0x0000004404228810L,
+            0x0101000008210100L, 0x0025000820089082L, 0x0008091010008120L, 0x9120024202040010L
+    };
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final long[][] ROOK_TABLE = new long[64][];
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final long[][] BISHOP_TABLE = new long[64][];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            initMagic(square, ROOK_DIRECTIONS, ROOK_MAGICS[square], ROOK_MASKS, ROOK_SHIFTS, ROOK_TABLE);
+            initMagic(square, BISHOP_DIRECTIONS, BISHOP_MAGICS[square], BISHOP_MASKS, BISHOP_SHIFTS, BISHOP_TABLE);
+        }
+    }
+
+    private Attacks() {}
+
+    /**
+     * Determines if any piece of a team attacks a square
+     *
+     * @param bits     the pieces on the board
+     * @param square   the square to check
+     * @param attacker the team that might be attacking it
+     * @param occupied squares treated as occupied, normally {@code bits.occupied()}. Sliding
+     *                 pieces stop at these squares, and pieces outside of it are ignored,
+     *                 so a caller can ask about a position after a move without playing it
+     * @return True if a piece of the attacking team could capture on the square
+     */
+    public static boolean isAttacked(BitBoard bits, int square, ChessGame.TeamColor attacker, long occupied) {
+        return attackers(bits, square, attacker, occupied) != 0;
+    }
+
+    /**
+     * @return every piece of the attacking team that could capture on the square
+     */
+    public static long attackers(BitBoard bits, int square, ChessGame.TeamColor attacker, long occupied) {
+        ChessGame.TeamColor defender = (attacker == ChessGame.TeamColor.WHITE)
+                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        long queens = bits.pieces(attacker, ChessPiece.PieceType.QUEEN);
+        long straight = bits.pieces(attacker, ChessPiece.PieceType.ROOK) | queens;
+        long diagonal = bits.pieces(attacker, ChessPiece.PieceType.BISHOP) | queens;
+        long found = (knight(square) & bits.pieces(attacker, ChessPiece.PieceType.KNIGHT))
+                | (king(square) & bits.pieces(attacker, ChessPiece.PieceType.KING))
+                | (pawn(defender, square) & bits.pieces(attacker, ChessPiece.PieceType.PAWN));
+        if (straight != 0) {
+            found |= rook(square, occupied) & straight;
+        }
+        if (diagonal != 0) {
+            found |= bishop(square, occupied) & diagonal;
+        }
+        return found & occupied;
+    }
+
+    /**
+     * @return squares a knight on the given square attacks
+     */
+    public static long knight(int square) {
+        return KNIGHT[square];
+    }
+
+    /**
+     * @return squares a king on the given square attacks
+     */
+    public static long king(int square) {
+        return KING[square];
+    }
+
+    /**
+     * @return squares a pawn of the given color on the given square attacks
+     */
+    public static long pawn(ChessGame.TeamColor color, int square) {
+        return PAWN[color.ordinal()][square];
+    }
+
+    /**
+     * @return squares a bishop on the given square attacks, stopping at (and
+     * including) the first occupied square in each direction
+     */
+    public static long bishop(int square, long occupied) {
+        long blockers = occupied & BISHOP_MASKS[square];
+        return BISHOP_TABLE[square][(int) ((blockers * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square])];
+    }
+
+    /**
+     * @return squares a rook on the given square attacks, stopping at (and
+     * including) the first occupied square in each direction
+     */
+    public static long rook(int square, long occupied) {
+        long blockers = occupied & ROOK_MASKS[square];
+        return ROOK_TABLE[square][(int) ((blockers * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square])];
+    }
+
+    public static long queen(int square, long occupied) {
+        return bishop(square, occupied) | rook(square, occupied);
+    }
+
+    /**
+     * @return the squares strictly between two squares that share a row, column
+     * or diagonal, or 0 if they don't line up or are next to each other
+     */
+    public static long between(int from, int to) {
+        return BETWEEN[from][to];
+    }
+
+    private static long steps(int square, int[][] directions) {
+        int row = square >>> 3;
+        int col = square & 7;
+        long mask = 0;
+        for (int[] direction : directions) {
+            int checkRow = row + direction[0];
+            int checkCol = col + direction[1];
+            if (checkRow >= 0 && checkCol >= 0 && checkRow <= 7 && checkCol <= 7) {
+                mask |= BitBoard.bit(checkRow * 8 + checkCol);
+            }
+        }
+        return mask;
+    }
+
+    private static long rays(int square, long occupied, int[][] directions) {
+        int row = square >>> 3;
+        int col = square & 7;
+        long mask = 0;
+        for (int[] direction : directions) {
+            int checkRow = row + direction[0];
+            int checkCol = col + direction[1];
+            while (checkRow >= 0 && checkCol >= 0 && checkRow <= 7 && checkCol <= 7) {
+                long bit = BitBoard.bit(checkRow * 8 + checkCol);
+                mask |= bit;
+                if ((occupied & bit) != 0) {
+                    break;
+                }
+                checkRow += direction[0];
+                checkCol += direction[1];
+            }
+        }
+        return mask;
+    }
+
+    private static void initBetween(int square) {
+        int row = square >>> 3;
+        int col = square & 7;
+        for (int[] direction : KING_DIRECTIONS) {
+            int checkRow = row + direction[0];
+            int checkCol = col + direction[1];
+            long passed = 0;
+            while (checkRow >= 0 && checkCol >= 0 && checkRow <= 7 && checkCol <= 7) {
+                int to = checkRow * 8 + checkCol;
+                BETWEEN[square][to] = passed;
+                passed |= BitBoard.bit(to);
+                checkRow += direction[0];
+                checkCol += direction[1];
+            }
+        }
+    }
+
+    /**
+     * Squares that can block a slider, which are the rays from the square
+     * without the last square of each ray: a piece on the edge of the board
+     * never stops a slider from reaching anything
+     */
+    private static long blockerMask(int square, int[][] directions) {
+        int row = square >>> 3;
+        int col = square & 7;
+        long mask = 0;
+        for (int[] direction : directions) {
+            int checkRow = row + direction[0];
+            int checkCol = col + direction[1];
+            while (checkRow + direction[0] >= 0 && checkCol + direction[1] >= 0
+                    && checkRow + direction[0] <= 7 && checkCol + direction[1] <= 7) {
+                mask |= BitBoard.bit(checkRow * 8 + checkCol);
+                checkRow += direction[0];
+                checkCol += direction[1];
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Fills in the attack table of one square for its magic number
+     */
+    private static void initMagic(int square, int[][] directions, long magic, long[] masks, int[] shifts,
+                                  long[][] tables) {
+        long mask = blockerMask(square, directions);
+        int bits = Long.bitCount(mask);
+        long[] table = new long[1 << bits];
+        // walk every subset of the mask
+        long blockers = 0;
+        do {
+            int index = (int) ((blockers * magic) >>> (64 - bits));
+            long attacks = rays(square, blockers, directions);
+            if (table[index] != 0 && table[index] != attacks) {
+                throw new IllegalStateException("Magic number does not fit square " + square);
+            }
+            table[index] = attacks;
+            blockers = (blockers - mask) & mask;
+        } while (blockers != 0);
+        masks[square] = mask;
+        shifts[square] = 64 - bits;
+        tables[square] = table;
+    }
+}
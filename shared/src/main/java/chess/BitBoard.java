@@ -0,0 +1,213 @@
+package chess;
+
+/**
+ * A bitboard view of a {@link ChessBoard}: one 64-bit mask for every
+ * color/type combination, plus an occupancy mask per team and one for the
+ * whole board.
+ * <p>
+ * Squares are numbered 0-63 starting at the bottom left of the board, so
+ * row 1 column 1 is square 0, row 1 column 8 is square 7 and row 8 column 8
+ * is square 63. Bit {@code n} of a mask is set when square {@code n} holds a
+ * matching piece.
+ * <p>
+ * A BitBoard is kept up to date by the {@link ChessBoard} that owns it, so it
+ * should only be read from outside this package.
+ */
+public final class BitBoard {
+
+    public static final int SQUARES = 64;
+
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private final long[] pieces = new long[12];
+    private final long[] teams = new long[2];
+    private long occupied;
+    private long key;
+    // running piece-square totals and game phase, see PieceSquareTables
+    private int middlegame;
+    private int endgame;
+    private int phase;
+
+    BitBoard() {}
+
+    /**
+     * Builds the masks for an existing 8x8 grid of pieces
+     *
+     * @param grid pieces indexed by [row - 1][column - 1]
+     * @return a bitboard holding the same pieces as the grid
+     */
+    static BitBoard of(ChessPiece[][] grid) {
+        BitBoard bits = new BitBoard();
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                if (grid[row][col] != null) {
+                    bits.add(row * 8 + col, grid[row][col]);
+                }
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * @return a bitboard with the same masks that can be changed independently
+     */
+    BitBoard copy() {
+        BitBoard copy = new BitBoard();
+        System.arraycopy(pieces, 0, copy.pieces, 0, pieces.length);
+        copy.teams[0] = teams[0];
+        copy.teams[1] = teams[1];
+        copy.occupied = occupied;
+        copy.key = key;
+        copy.middlegame = middlegame;
+        copy.endgame = endgame;
+        copy.phase = phase;
+        return copy;
+    }
+
+    /**
+     * @return the square index (0-63) for a 1-based row and column
+     */
+    public static int square(int row, int col) {
+        return (row - 1) * 8 + (col - 1);
+    }
+
+    /**
+     * @return the square index (0-63) for a position
+     */
+    public static int square(ChessPosition position) {
+        return square(position.getRow(), position.getColumn());
+    }
+
+    /**
+     * @return the 1-based row of a square index
+     */
+    public static int row(int square) {
+        return (square >>> 3) + 1;
+    }
+
+    /**
+     * @return the 1-based column of a square index
+     */
+    public static int column(int square) {
+        return (square & 7) + 1;
+    }
+
+    /**
+     * @return a mask with only the given square set
+     */
+    public static long bit(int square) {
+        return 1L << square;
+    }
+
+    /**
+     * @return which of the 12 piece masks holds pieces of this color and type
+     */
+    static int index(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return color.ordinal() * 6 + type.ordinal();
+    }
+
+    void add(int square, ChessPiece piece) {
+        long mask = bit(square);
+        pieces[index(piece.getTeamColor(), piece.getPieceType())] |= mask;
+        teams[piece.getTeamColor().ordinal()] |= mask;
+        occupied |= mask;
+        key ^= Zobrist.piece(piece, square);
+        middlegame += PieceSquareTables.middlegame(piece, square);
+        endgame += PieceSquareTables.endgame(piece, square);
+        phase += PieceSquareTables.phase(piece.getPieceType());
+    }
+
+    void remove(int square, ChessPiece piece) {
+        long mask = ~bit(square);
+        pieces[index(piece.getTeamColor(), piece.getPieceType())] &= mask;
+        teams[piece.getTeamColor().ordinal()] &= mask;
+        occupied &= mask;
+        key ^= Zobrist.piece(piece, square);
+        middlegame -= PieceSquareTables.middlegame(piece, square);
+        endgame -= PieceSquareTables.endgame(piece, square);
+        phase -= PieceSquareTables.phase(piece.getPieceType());
+    }
+
+    /**
+     * @return every square holding a piece of the given color and type
+     */
+    public long pieces(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return pieces[index(color, type)];
+    }
+
+    /**
+     * @return every square holding a piece of the given color
+     */
+    public long occupancy(ChessGame.TeamColor color) {
+        return teams[color.ordinal()];
+    }
+
+    /**
+     * @return every square holding a piece of either color
+     */
+    public long occupied() {
+        return occupied;
+    }
+
+    /**
+     * @return the Zobrist hash of the pieces on the board, updated with every
+     * piece that is added or removed
+     */
+    public long key() {
+        return key;
+    }
+
+    /**
+     * @return the material and piece-square score of the board in centipawns,
+     * from white's point of view. Like the key it is updated with every piece
+     * that is added or removed, so reading it costs nothing.
+     */
+    public int evaluation() {
+        return PieceSquareTables.blend(middlegame, endgame, phase);
+    }
+
+    /**
+     * Finds a king without scanning the board: the king masks are updated
+     * with every piece that is added or removed, so this is a single bit scan.
+     *
+     * @return the square of the team's king, or -1 if it has none
+     */
+    public int kingSquare(ChessGame.TeamColor color) {
+        long king = pieces[index(color, ChessPiece.PieceType.KING)];
+        return (king == 0) ? -1 : Long.numberOfTrailingZeros(king);
+    }
+
+    public boolean isEmpty(int square) {
+        return (occupied & bit(square)) == 0;
+    }
+
+    /**
+     * @return the color of the piece on the square, or null if it is empty
+     */
+    public ChessGame.TeamColor colorAt(int square) {
+        long mask = bit(square);
+        if ((teams[0] & mask) != 0) {
+            return ChessGame.TeamColor.WHITE;
+        }
+        if ((teams[1] & mask) != 0) {
+            return ChessGame.TeamColor.BLACK;
+        }
+        return null;
+    }
+
+    /**
+     * @return the type of the piece on the square, or null if it is empty
+     */
+    public ChessPiece.PieceType typeAt(int square) {
+        long mask = bit(square);
+        if ((occupied & mask) == 0) {
+            return null;
+        }
+        for (int i = 0; i < pieces.length; i++) {
+            if ((pieces[i] & mask) != 0) {
+                return TYPES[i % 6];
+            }
+        }
+        return null;
+    }
+}
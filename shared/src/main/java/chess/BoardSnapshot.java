@@ -0,0 +1,184 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * An immutable copy of a board that shares structure with the snapshots
+ * taken before it.
+ * <p>
+ * The board is split into its 8 rows, and each row is an immutable node
+ * holding its 8 squares as 4-bit piece codes. Changing a square builds a
+ * new node for that row only and points at the old nodes for every other
+ * row, so a snapshot taken after an ordinary move costs one or two row
+ * nodes plus the array of row references, rather than a whole new grid.
+ * Rows with no pieces on them all share one empty node.
+ */
+public final class BoardSnapshot {
+
+    private static final ChessPiece[] PIECES = new ChessPiece[13];
+    private static final Row EMPTY_ROW = new Row(0);
+
+    static {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+                PIECES[code(ChessPiece.of(color, type))] = ChessPiece.of(color, type);
+            }
+        }
+    }
+
+    private final Row[] rows;
+
+    private BoardSnapshot(Row[] rows) {
+        this.rows = rows;
+    }
+
+    /**
+     * One row of the board: the piece code of each square, 4 bits per column
+     * with column 1 in the lowest bits
+     */
+    private static final class Row {
+        final int codes;
+
+        Row(int codes) {
+            this.codes = codes;
+        }
+    }
+
+    /**
+     * Takes a snapshot of a board
+     *
+     * @param board the board to copy
+     * @return a snapshot holding the same pieces
+     */
+    public static BoardSnapshot of(ChessBoard board) {
+        return of(board, null);
+    }
+
+    /**
+     * Takes a snapshot of a board, reusing every row of an earlier snapshot
+     * that the board still matches
+     *
+     * @param board    the board to copy
+     * @param previous an earlier snapshot to share rows with, or null
+     * @return a snapshot holding the same pieces as the board
+     */
+    public static BoardSnapshot of(ChessBoard board, BoardSnapshot previous) {
+        Row[] rows = new Row[8];
+        for (int row = 0; row < 8; row++) {
+            int codes = 0;
+            for (int col = 0; col < 8; col++) {
+                codes |= code(board.pieceAt(row * 8 + col)) << (col * 4);
+            }
+            rows[row] = row(codes, (previous == null) ? null : previous.rows[row]);
+        }
+        return new BoardSnapshot(rows);
+    }
+
+    /**
+     * Gets a snapshot with one square changed. This snapshot is unchanged and
+     * shares every other row with the new one.
+     *
+     * @param position the square to change
+     * @param piece    the piece to put there, or null to empty it
+     * @return the changed snapshot
+     */
+    public BoardSnapshot with(ChessPosition position, ChessPiece piece) {
+        return with(BitBoard.square(position), piece);
+    }
+
+    /**
+     * @param square square index as numbered by {@link BitBoard}
+     * @see #with(ChessPosition, ChessPiece)
+     */
+    BoardSnapshot with(int square, ChessPiece piece) {
+        int row = square >>> 3;
+        int shift = (square & 7) * 4;
+        int codes = (rows[row].codes & ~(15 << shift)) | (code(piece) << shift);
+        Row[] changed = rows.clone();
+        changed[row] = row(codes, rows[row]);
+        return new BoardSnapshot(changed);
+    }
+
+    /**
+     * @return the piece on a square, or null if it is empty
+     */
+    public ChessPiece getPiece(ChessPosition position) {
+        return pieceAt(BitBoard.square(position));
+    }
+
+    /**
+     * @param square square index as numbered by {@link BitBoard}
+     * @return the piece on that square, or null if it is empty
+     */
+    public ChessPiece pieceAt(int square) {
+        return PIECES[(rows[square >>> 3].codes >>> ((square & 7) * 4)) & 15];
+    }
+
+    /**
+     * @return a new board with the pieces of this snapshot, free to be changed
+     */
+    public ChessBoard toBoard() {
+        ChessBoard board = new ChessBoard();
+        for (int square = 0; square < BitBoard.SQUARES; square++) {
+            ChessPiece piece = pieceAt(square);
+            if (piece != null) {
+                board.setPiece(square, piece);
+            }
+        }
+        return board;
+    }
+
+    /**
+     * @return True if both snapshots point at the very same node for a row,
+     * meaning that row's memory is shared between them
+     */
+    boolean sharesRow(BoardSnapshot other, int row) {
+        return rows[row - 1] == other.rows[row - 1];
+    }
+
+    private static Row row(int codes, Row previous) {
+        if (previous != null && previous.codes == codes) {
+            return previous;
+        }
+        return (codes == 0) ? EMPTY_ROW : new Row(codes);
+    }
+
+    private static int code(ChessPiece piece) {
+        return (piece == null) ? 0 : BitBoard.index(piece.getTeamColor(), piece.getPieceType()) + 1;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        BoardSnapshot that = (BoardSnapshot) o;
+        for (int row = 0; row < 8; row++) {
+            if (rows[row].codes != that.rows[row].codes) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (Row row : rows) {
+            hash = hash * 31 + row.codes;
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        int[] codes = new int[8];
+        for (int row = 0; row < 8; row++) {
+            codes[row] = rows[row].codes;
+        }
+        return "BoardSnapshot{rows=" + Arrays.toString(codes) + '}';
+    }
+}
@@ -0,0 +1,82 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * Castling rights packed into the low four bits of an int, one bit per king
+ * and side. A right is lost for good once the king or that rook moves, or
+ * the rook is captured, so the mask is updated with every move by clearing
+ * the bits tied to the squares the move touched.
+ */
+public final class CastlingRights {
+
+    public static final int NONE = 0;
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+    public static final int ALL = 15;
+
+    // home squares of the kings
+    static final int WHITE_KING = 4;
+    static final int BLACK_KING = 60;
+
+    // the rights that survive a move touching each square
+    private static final int[] KEPT = new int[BitBoard.SQUARES];
+
+    static {
+        Arrays.fill(KEPT, ALL);
+        KEPT[WHITE_KING] = ALL & ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        KEPT[BLACK_KING] = ALL & ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        KEPT[7] = ALL & ~WHITE_KINGSIDE;
+        KEPT[0] = ALL & ~WHITE_QUEENSIDE;
+        KEPT[63] = ALL & ~BLACK_KINGSIDE;
+        KEPT[56] = ALL & ~BLACK_QUEENSIDE;
+    }
+
+    private CastlingRights() {}
+
+    /**
+     * @return the rights left after a move from one square to another
+     */
+    public static int update(int rights, int from, int to) {
+        return rights & KEPT[from] & KEPT[to];
+    }
+
+    /**
+     * Works out the rights a board could still have from where its pieces
+     * stand: a king and rook that are both on their starting squares are
+     * assumed not to have moved.
+     *
+     * @return the rights mask for the board
+     */
+    public static int fromBoard(ChessBoard board) {
+        BitBoard bits = board.getBitBoard();
+        int rights = NONE;
+        long whiteRooks = bits.pieces(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK);
+        long blackRooks = bits.pieces(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK);
+        if (bits.kingSquare(ChessGame.TeamColor.WHITE) == WHITE_KING) {
+            rights |= ((whiteRooks & BitBoard.bit(7)) != 0) ? WHITE_KINGSIDE : 0;
+            rights |= ((whiteRooks & BitBoard.bit(0)) != 0) ? WHITE_QUEENSIDE : 0;
+        }
+        if (bits.kingSquare(ChessGame.TeamColor.BLACK) == BLACK_KING) {
+            rights |= ((blackRooks & BitBoard.bit(63)) != 0) ? BLACK_KINGSIDE : 0;
+            rights |= ((blackRooks & BitBoard.bit(56)) != 0) ? BLACK_QUEENSIDE : 0;
+        }
+        return rights;
+    }
+
+    /**
+     * @return the kingside right of a team
+     */
+    public static int kingside(ChessGame.TeamColor color) {
+        return (color == ChessGame.TeamColor.WHITE) ? WHITE_KINGSIDE : BLACK_KINGSIDE;
+    }
+
+    /**
+     * @return the queenside right of a team
+     */
+    public static int queenside(ChessGame.TeamColor color) {
+        return (color == ChessGame.TeamColor.WHITE) ? WHITE_QUEENSIDE : BLACK_QUEENSIDE;
+    }
+}
@@ -1,6 +1,5 @@
 package chess;
 
-import java.util.Arrays;
 import java.util.Objects;
 
 /**
@@ -11,23 +10,40 @@ import java.util.Objects;
  */
 public class ChessBoard {
     private ChessPiece[][] board = new ChessPiece[8][8];
+    // built on first use and then kept in step by addPiece/setPiece; transient
+    // so serialized boards rebuild it from the grid they were loaded with, and
+    // volatile so a reader thread that builds it publishes it whole
+    private transient volatile BitBoard bits;
 
     public ChessBoard() {}
 
+    /**
+     * Copies a grid of pieces. Pieces are swapped for their shared instances
+     * from {@link ChessPiece#of}, which cannot change, so the copy can hold the
+     * same references as the original instead of cloning every piece.
+     *
+     * @param copyBoard pieces indexed by [row - 1][column - 1]
+     */
     public ChessBoard(ChessPiece[][] copyBoard) {
         for (int i = 0; i < 8; i++) {
             for (int j = 0; j < 8; j++) {
-                ChessPiece copyPiece = copyBoard[i][j];
-                if (copyPiece != null) {
-                    ChessPiece piece = new ChessPiece(copyPiece.getTeamColor(), copyPiece.getPieceType());
-                    board[i][j] = piece;
-                } else {
-                    board[i][j] = null;
-                }
+                board[i][j] = ChessPiece.of(copyBoard[i][j]);
             }
         }
     }
 
+    /**
+     * @return a copy of this board that can be changed without affecting it
+     */
+    public ChessBoard copy() {
+        ChessBoard copy = new ChessBoard(board);
+        BitBoard index = bits;
+        if (index != null) {
+            copy.bits = index.copy();
+        }
+        return copy;
+    }
+
     /**
      * Adds a chess piece to the chessboard
      *
@@ -35,7 +51,7 @@ public class ChessBoard {
      * @param piece    the piece to add
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        board[position.getRow()-1][position.getColumn()-1] = piece;
+        place(position.getRow()-1, position.getColumn()-1, piece);
     }
 
     /**
@@ -49,45 +65,95 @@ public class ChessBoard {
         return board[position.getRow()-1][position.getColumn()-1];
     }
 
+    /**
+     * Gets the piece on a square without creating a ChessPosition
+     *
+     * @param square square index as numbered by {@link BitBoard}
+     * @return the piece on that square, or null if it is empty
+     */
+    ChessPiece pieceAt(int square) {
+        return board[square >>> 3][square & 7];
+    }
+
     public void setPiece(ChessPosition position, ChessPiece piece) {
-        board[position.getRow()-1][position.getColumn()-1] = piece;
+        place(position.getRow()-1, position.getColumn()-1, piece);
+    }
+
+    void setPiece(int square, ChessPiece piece) {
+        place(square >>> 3, square & 7, piece);
     }
 
+    private void place(int row, int col, ChessPiece piece) {
+        ChessPiece old = board[row][col];
+        board[row][col] = piece;
+        BitBoard index = bits;
+        if (index != null) {
+            if (old != null) {
+                index.remove(row * 8 + col, old);
+            }
+            if (piece != null) {
+                index.add(row * 8 + col, piece);
+            }
+        }
+    }
+
+    /**
+     * Gets the raw grid of pieces. Changes should go through addPiece/setPiece;
+     * writing to the grid directly leaves the bitboards out of date.
+     *
+     * @return pieces indexed by [row - 1][column - 1]
+     */
     public ChessPiece[][] getBoard() {
         return board;
     }
 
+    /**
+     * Gets the bitboard representation of this board, building it the first
+     * time it is asked for.
+     *
+     * @return masks of the pieces currently on the board
+     */
+    public BitBoard getBitBoard() {
+        BitBoard index = bits;
+        if (index == null) {
+            index = BitBoard.of(board);
+            bits = index;
+        }
+        return index;
+    }
+
     /**
      * Sets the board to the default starting board
      * (How the game of chess normally starts)
      */
     public void resetBoard() {
+        bits = null;
         for (int i = 0; i < 8; i++) {
             for (int j = 0; j < 8; j++) {
                 board[i][j] = null;
             }
         }
         for (int i = 1; i <= 8; i++) {
-            addPiece(new ChessPosition(2, i), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
-            addPiece(new ChessPosition(7, i), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+            addPiece(ChessPosition.of(2, i), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+            addPiece(ChessPosition.of(7, i), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
 
         }
-        addPiece(new ChessPosition(1, 1), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
-        addPiece(new ChessPosition(8, 1), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
-        addPiece(new ChessPosition(1, 2), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
-        addPiece(new ChessPosition(8, 2), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
-        addPiece(new ChessPosition(1, 3), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
-        addPiece(new ChessPosition(8, 3), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
-        addPiece(new ChessPosition(1, 4), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
-        addPiece(new ChessPosition(8, 4), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN));
-        addPiece(new ChessPosition(1, 5), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
-        addPiece(new ChessPosition(8, 5), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
-        addPiece(new ChessPosition(1, 6), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
-        addPiece(new ChessPosition(8, 6), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
-        addPiece(new ChessPosition(1, 7), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
-        addPiece(new ChessPosition(8, 7), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
-        addPiece(new ChessPosition(1, 8), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
-        addPiece(new ChessPosition(8, 8), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(1, 1), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(8, 1), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(1, 2), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(8, 2), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(1, 3), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(8, 3), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(1, 4), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
+        addPiece(ChessPosition.of(8, 4), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN));
+        addPiece(ChessPosition.of(1, 5), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        addPiece(ChessPosition.of(8, 5), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        addPiece(ChessPosition.of(1, 6), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(8, 6), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(1, 7), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(8, 7), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(1, 8), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(8, 8), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
 
 
     }
@@ -101,11 +167,15 @@ public class ChessBoard {
             return false;
         }
         ChessBoard that = (ChessBoard) o;
+        // different keys always mean different boards; equal keys still get compared square by square
+        if (getBitBoard().key() != that.getBitBoard().key()) {
+            return false;
+        }
         return Objects.deepEquals(board, that.board);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(board);
+        return Long.hashCode(getBitBoard().key());
     }
 }
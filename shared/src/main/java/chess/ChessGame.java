@@ -1,6 +1,9 @@
 package chess;
 
+import com.google.gson.annotations.JsonAdapter;
+
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
@@ -8,23 +11,54 @@ import java.util.Objects;
 /**
  * For a class that can manage a chess game, making moves on a board
  * <p>
+ * Queries (validMoves, legalMoves, status, isInCheck, isInCheckmate,
+ * isInStalemate, positionKey) never modify the game, so any number of threads
+ * can read one game at once as long as nobody is making or undoing a move.
+ * <p>
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
+@JsonAdapter(SavedGameAdapterFactory.class)
 public class ChessGame {
     TeamColor turn = TeamColor.WHITE;
     ChessBoard board = new ChessBoard();
-    List<ChessPiece> capturedPieces = new ArrayList<>();
+    // how many pieces of each color and type have been captured, indexed like the
+    // BitBoard piece masks, so the game stays the same size however long it runs
+    int[] capturedCounts = new int[12];
+    // games saved before the counts listed every captured piece instead. Gson fills
+    // this from such a save, it is folded into the counts as the game is loaded, and
+    // being null from then on it is never written back out
+    private List<ChessPiece> capturedPieces;
     boolean gameOver = false;
+    // part of the position rather than of the board, so they are saved with the game
+    int castlingRights = CastlingRights.ALL;
+    int enPassantFile = -1;
+    // plies since the last capture or pawn move, and every move played with what it
+    // takes to undo it, both saved so a reloaded game can still be taken back,
+    // replayed and checked for draws
+    int halfmoveClock = 0;
+    private MoveHistory history = new MoveHistory();
+    // legal moves of the side to move, reused until the position key changes. The
+    // snapshot is immutable, so threads reading the game can share it; if two of
+    // them miss at once they both compute the same answer
+    private transient volatile LegalMoves legalMoveCache;
+    private transient MoveGeneration moveGeneration = MoveGeneration.MASKED;
+    // the board after every ply, built on first request and then extended by
+    // makeMove and trimmed by takeBack. Each snapshot shares its unchanged rows
+    // with the one before, so keeping them all costs little more than the moves.
+    // The key is the position the last snapshot was taken in, to tell whether the
+    // list still matches the game without comparing boards
+    private transient ArrayList<BoardSnapshot> snapshots;
+    private transient long snapshotsKey;
 
     public ChessGame() {
         board.resetBoard();
     }
 
     public ChessGame(ChessBoard board, TeamColor turn) {
-        this.board = new ChessBoard(board.getBoard());
-        this.capturedPieces = new ArrayList<>();
+        this.board = board.copy();
         this.turn = turn;
+        this.castlingRights = CastlingRights.fromBoard(this.board);
     }
 
     /**
@@ -51,6 +85,112 @@ public class ChessGame {
         BLACK
     }
 
+    /**
+     * Enum describing where a game stands for the team whose turn it is
+     */
+    public enum GameStatus {
+        IN_PROGRESS,
+        CHECK,
+        CHECKMATE,
+        STALEMATE,
+        /**
+         * The same position, with the same side to move, castling rights and
+         * en passant file, has come up for the third time
+         */
+        THREEFOLD_REPETITION,
+        /**
+         * Fifty moves by each side have gone by without a capture or a pawn move
+         */
+        FIFTY_MOVE_RULE;
+
+        /**
+         * @return True if the game cannot continue from this status
+         */
+        public boolean isOver() {
+            return this != IN_PROGRESS && this != CHECK;
+        }
+
+        /**
+         * @return True if the game ended without a winner
+         */
+        public boolean isDraw() {
+            return isOver() && this != CHECKMATE;
+        }
+    }
+
+    /**
+     * Enum identifying the ways legal moves can be generated. Both produce the
+     * same moves; they differ only in how much work they do to find them.
+     */
+    public enum MoveGeneration {
+        /**
+         * Generates every pseudo-legal move, then drops each one that would
+         * leave the king under attack
+         */
+        FILTERED,
+        /**
+         * Finds checking and pinned pieces once per position and only
+         * generates moves that respect them, see {@link LegalMoveGenerator}
+         */
+        MASKED
+    }
+
+    /**
+     * @return how this game generates its legal moves
+     */
+    public MoveGeneration getMoveGeneration() {
+        return moveGeneration;
+    }
+
+    /**
+     * Chooses how this game generates its legal moves
+     *
+     * @param moveGeneration the generator to use from now on
+     */
+    public void setMoveGeneration(MoveGeneration moveGeneration) {
+        this.moveGeneration = moveGeneration;
+        legalMoveCache = null;
+    }
+
+    /**
+     * Determines whether the team whose turn it is is in check, checkmate or
+     * stalemate, or whether the game is drawn by repetition or the fifty-move
+     * rule. Check, checkmate and stalemate come out of the same legal move
+     * generation that validMoves and makeMove use, and are kept until the next
+     * move. A checkmate on the move that also reaches a draw still wins.
+     *
+     * @return the status of the game for the team whose turn it is
+     */
+    public GameStatus status() {
+        GameStatus status = currentLegalMoves().status;
+        if (status.isOver()) {
+            return status;
+        }
+        if (halfmoveClock >= 100) {
+            return GameStatus.FIFTY_MOVE_RULE;
+        }
+        if (history.repetitions(positionKey(), halfmoveClock) >= 2) {
+            return GameStatus.THREEFOLD_REPETITION;
+        }
+        return status;
+    }
+
+    /**
+     * @return True if the position has already occurred since the last capture
+     * or pawn move. A search treats a single repeat as a draw, since the side
+     * that could avoid it would already have done so.
+     */
+    boolean isRepetition() {
+        return history.repetitions(positionKey(), halfmoveClock) > 0;
+    }
+
+    /**
+     * @return how many plies have been played since the last capture or pawn move
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
     /**
      * Gets a valid moves for a piece at the given location
      *
@@ -59,44 +199,391 @@ public class ChessGame {
      * startPosition
      */
     public Collection<ChessMove> validMoves(ChessPosition startPosition) {
-        ChessPiece currPiece = board.getPiece(startPosition);
-        Collection<ChessMove> allMoves = currPiece.pieceMoves(board, startPosition);
-        Collection<ChessMove> validMoves = new ArrayList<>();
-        TeamColor team = currPiece.getTeamColor();
-        // for each move that can be made, check if it will put the king under attack
-        for (ChessMove move : allMoves) {
-            ChessGame copyGame = new ChessGame(board, team);
-            copyGame.checkMove(move);
-            if (!copyGame.isInCheck(team)) {
-                validMoves.add(move);
+        if (!startPosition.isOnBoard() || board.getPiece(startPosition) == null) {
+            return null;
+        }
+        int[] moves = new int[MoveGenerator.MAX_PIECE_MOVES];
+        int count = legalMoves(BitBoard.square(startPosition), moves);
+        return PackedMove.toChessMoves(moves, count);
+    }
+
+    /**
+     * Writes every legal move of the team whose turn it is into a buffer.
+     * The moves are generated once per position and shared with validMoves,
+     * makeMove and the checkmate/stalemate checks until the position changes.
+     *
+     * @param moves buffer of at least {@link MoveGenerator#MAX_MOVES} entries
+     * @return how many legal moves were written
+     */
+    public int legalMoves(int[] moves) {
+        return currentLegalMoves().copyTo(moves);
+    }
+
+    /**
+     * Writes the legal moves of the piece on a square into a buffer
+     *
+     * @param from  square of the piece to move, as numbered by {@link BitBoard}
+     * @param moves buffer of at least {@link MoveGenerator#MAX_PIECE_MOVES} entries
+     * @return how many legal moves were written
+     */
+    public int legalMoves(int from, int[] moves) {
+        TeamColor team = board.pieceAt(from).getTeamColor();
+        if (team == turn) {
+            return currentLegalMoves().copyFrom(from, moves);
+        }
+        // only the side to move can capture en passant
+        if (moveGeneration == MoveGeneration.MASKED) {
+            return LegalMoveGenerator.pieceMoves(board, from, castlingRights, -1, moves);
+        }
+        int count = tryMoves(moves, MoveGenerator.pieceMoves(board, from, moves, 0));
+        return LegalMoveGenerator.specialMoves(board, team, castlingRights, -1, BitBoard.bit(from), moves, count);
+    }
+
+    /**
+     * Writes every legal move of the team whose turn it is into a buffer
+     * without going through the per-position cache. This is the variant for
+     * callers that visit many positions once each, such as perft or a search.
+     *
+     * @param moves buffer of at least {@link MoveGenerator#MAX_MOVES} entries
+     * @return how many legal moves were written
+     */
+    public int generateLegalMoves(int[] moves) {
+        if (moveGeneration == MoveGeneration.MASKED) {
+            return LegalMoveGenerator.generate(board, turn, castlingRights, enPassantFile, moves);
+        }
+        int count = tryMoves(moves, MoveGenerator.generate(board, turn, moves));
+        return LegalMoveGenerator.specialMoves(board, turn, castlingRights, enPassantFile, -1L, moves, count);
+    }
+
+    private LegalMoves currentLegalMoves() {
+        long key = positionKey();
+        LegalMoves cached = legalMoveCache;
+        if (cached == null || cached.key != key) {
+            int[] moves = new int[MoveGenerator.MAX_MOVES];
+            int count = generateLegalMoves(moves);
+            boolean inCheck = board.getBitBoard().kingSquare(turn) >= 0 && isInCheck(turn);
+            cached = new LegalMoves(key, moves, count, inCheck);
+            legalMoveCache = cached;
+        }
+        return cached;
+    }
+
+    /**
+     * Filters pseudo-legal moves down to the legal ones, in place
+     *
+     * @return how many of the moves were legal
+     */
+    private int tryMoves(int[] moves, int count) {
+        int legal = 0;
+        for (int i = 0; i < count; i++) {
+            if (leavesKingSafe(moves[i])) {
+                moves[legal++] = moves[i];
             }
         }
-        return validMoves;
+        return legal;
     }
 
-    public void checkMove(ChessMove move) {
-        TeamColor opposingTeam;
-        if (turn == TeamColor.BLACK) {
-            opposingTeam = TeamColor.WHITE;
-        } else {
-            opposingTeam = TeamColor.BLACK;
+    /**
+     * Determines if a move would leave the mover's own king out of check.
+     * Rather than playing the move, this asks whether the king would be
+     * attacked on a board whose occupancy has the moving piece lifted off its
+     * start square and dropped on its end square, with any piece captured
+     * there no longer counted as an attacker. Nothing in the game is modified.
+     */
+    private boolean leavesKingSafe(int move) {
+        BitBoard bits = board.getBitBoard();
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        ChessPiece piece = board.pieceAt(from);
+        TeamColor team = piece.getTeamColor();
+        int king = (piece.getPieceType() == ChessPiece.PieceType.KING) ? to : bits.kingSquare(team);
+        if (king < 0) {
+            throw new RuntimeException("No King found");
         }
+        TeamColor opposingTeam = (team == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
+        long occupied = (bits.occupied() & ~BitBoard.bit(from)) | BitBoard.bit(to);
+        return (Attacks.attackers(bits, king, opposingTeam, occupied) & ~BitBoard.bit(to)) == 0;
+    }
 
-        ChessPiece currPiece = board.getPiece(move.getStartPosition());
-        // get valid moves
-        ChessPiece capturedPiece = board.getPiece(move.getEndPosition());
+    /**
+     * Plays a move on this game's board without checking that it is legal.
+     * Every call should be paired with {@link #undoMove()} when the move is
+     * only being tried out.
+     * <p>
+     * A king moving two squares castles, taking the rook along, and a pawn
+     * moving diagonally onto the en passant square captures the pawn beside it.
+     *
+     * @param move a move encoded with {@link PackedMove}
+     */
+    public void doMove(int move) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        ChessPiece currPiece = board.pieceAt(from);
+        boolean enPassant = isEnPassant(currPiece, from, to, enPassantFile);
+        // an en passant capture takes the pawn on the start row, next to the end square
+        int captureSquare = enPassant ? (from & ~7) | (to & 7) : to;
+        ChessPiece capturedPiece = board.pieceAt(captureSquare);
+        history.push(move, capturedPiece, castlingRights, enPassantFile, halfmoveClock, positionKey());
         if (capturedPiece != null) {
-            capturedPieces.add(capturedPiece);
+            capturedCounts[BitBoard.index(capturedPiece.getTeamColor(), capturedPiece.getPieceType())]++;
+        }
+        if (enPassant) {
+            board.setPiece(captureSquare, null);
         }
-        if (move.getPromotionPiece() != null) {
-            currPiece.promote(move.getPromotionPiece());
+        ChessPiece.PieceType promotion = PackedMove.promotion(move);
+        // promote by replacing the pawn so the pawn itself can be put back by undoMove
+        ChessPiece placed = (promotion == null) ? currPiece : ChessPiece.of(currPiece.getTeamColor(), promotion);
+        board.setPiece(to, placed);
+        board.setPiece(from, null);
+        if (isCastle(currPiece, from, to)) {
+            moveCastlingRook(from, to, false);
         }
-        board.setPiece(move.getEndPosition(), currPiece);
-        board.setPiece(move.getStartPosition(), null);
-//        turn = turn;
-        return;
+        castlingRights = CastlingRights.update(castlingRights, from, to);
+        enPassantFile = enPassantFileAfter(currPiece, from, to);
+        boolean irreversible = capturedPiece != null || currPiece.getPieceType() == ChessPiece.PieceType.PAWN;
+        halfmoveClock = irreversible ? 0 : halfmoveClock + 1;
+        turn = (currPiece.getTeamColor() == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
     }
 
+    /**
+     * Takes back the last move played with {@link #doMove(int)}, restoring the
+     * moved piece, any captured piece, whose turn it was and the castling and
+     * en passant state.
+     */
+    public void undoMove() {
+        int move = history.topMove();
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        // the piece that moved is still on its end square, unless it was a pawn that promoted
+        ChessPiece movedPiece = board.pieceAt(to);
+        if (PackedMove.promotion(move) != null) {
+            movedPiece = ChessPiece.of(movedPiece.getTeamColor(), ChessPiece.PieceType.PAWN);
+        }
+        ChessPiece capturedPiece = history.topCaptured();
+        int previousEnPassantFile = history.topEnPassantFile();
+        board.setPiece(from, movedPiece);
+        if (isEnPassant(movedPiece, from, to, previousEnPassantFile)) {
+            board.setPiece(to, null);
+            board.setPiece((from & ~7) | (to & 7), capturedPiece);
+        } else {
+            board.setPiece(to, capturedPiece);
+        }
+        if (isCastle(movedPiece, from, to)) {
+            moveCastlingRook(from, to, true);
+        }
+        if (capturedPiece != null) {
+            capturedCounts[BitBoard.index(capturedPiece.getTeamColor(), capturedPiece.getPieceType())]--;
+        }
+        turn = movedPiece.getTeamColor();
+        castlingRights = history.topCastlingRights();
+        enPassantFile = previousEnPassantFile;
+        halfmoveClock = history.topHalfmoveClock();
+        history.pop();
+    }
+
+    /**
+     * Gets how many pieces of one kind have been captured in this game
+     *
+     * @param color the team the captured pieces belonged to
+     * @param type  the type of the captured pieces
+     * @return how many of them have been captured
+     */
+    public int getCapturedCount(TeamColor color, ChessPiece.PieceType type) {
+        return capturedCounts[BitBoard.index(color, type)];
+    }
+
+    /**
+     * Brings a game just read from a save up to date, before anyone else can
+     * see it. Called once by {@link SavedGameAdapterFactory}.
+     */
+    void afterLoad() {
+        if (capturedPieces != null) {
+            int[] counts = new int[12];
+            for (ChessPiece piece : capturedPieces) {
+                counts[BitBoard.index(piece.getTeamColor(), piece.getPieceType())]++;
+            }
+            capturedCounts = counts;
+            capturedPieces = null;
+        }
+        // saves leave out the position keys, so take every move back and play it
+        // again, which records each key as it goes
+        int plies = history.size();
+        if (plies > 0) {
+            int[] moves = new int[plies];
+            for (int ply = 0; ply < plies; ply++) {
+                moves[ply] = history.move(ply);
+            }
+            for (int ply = 0; ply < plies; ply++) {
+                undoMove();
+            }
+            for (int move : moves) {
+                doMove(move);
+            }
+        }
+    }
+
+    /**
+     * @return how many moves have been played in this game
+     */
+    public int getMoveCount() {
+        return history.size();
+    }
+
+    /**
+     * Gets a move from this game's history
+     *
+     * @param ply which move, counting from 0 for the first move played
+     * @return the move played at that ply
+     */
+    public ChessMove getMove(int ply) {
+        Objects.checkIndex(ply, history.size());
+        return PackedMove.toChessMove(history.move(ply));
+    }
+
+    /**
+     * Takes back the last move made in this game
+     *
+     * @throws InvalidMoveException if no moves have been made
+     */
+    public void takeBack() throws InvalidMoveException {
+        if (history.size() == 0) {
+            throw new InvalidMoveException("Invalid move: No moves to take back");
+        }
+        undoMove();
+        if (snapshots != null && snapshots.size() == history.size() + 2) {
+            snapshots.remove(snapshots.size() - 1);
+            snapshotsKey = positionKey();
+        }
+    }
+
+    /**
+     * Rebuilds this game as it stood earlier on, by taking moves back on a
+     * copy. This game is left unchanged.
+     *
+     * @param plies how many moves of the game to keep, from 0 up to {@link #getMoveCount()}
+     * @return a new game in the position after that many moves
+     */
+    public ChessGame replay(int plies) {
+        Objects.checkIndex(plies, history.size() + 1);
+        ChessGame copy = new ChessGame(board, turn);
+        copy.capturedCounts = capturedCounts.clone();
+        copy.castlingRights = castlingRights;
+        copy.enPassantFile = enPassantFile;
+        copy.halfmoveClock = halfmoveClock;
+        copy.history = history.copy();
+        copy.moveGeneration = moveGeneration;
+        while (copy.history.size() > plies) {
+            copy.undoMove();
+        }
+        return copy;
+    }
+
+    /**
+     * Gets the board as it stood after a number of moves. Snapshots are kept
+     * for every ply once one has been asked for, so stepping through a game
+     * for a replay or a spectator catching up does not rebuild it each time.
+     *
+     * @param ply how many moves of the game had been made, from 0 up to {@link #getMoveCount()}
+     * @return an immutable snapshot of the board after that many moves
+     */
+    public BoardSnapshot getSnapshot(int ply) {
+        Objects.checkIndex(ply, history.size() + 1);
+        ArrayList<BoardSnapshot> list = snapshots;
+        // moves made with doMove do not extend the list, so rebuild it if they left it behind
+        if (list == null || list.size() != history.size() + 1 || snapshotsKey != positionKey()) {
+            list = buildSnapshots();
+            snapshots = list;
+            snapshotsKey = positionKey();
+        }
+        return list.get(ply);
+    }
+
+    private ArrayList<BoardSnapshot> buildSnapshots() {
+        ChessGame game = replay(0);
+        ArrayList<BoardSnapshot> list = new ArrayList<>(history.size() + 1);
+        BoardSnapshot snapshot = BoardSnapshot.of(game.board);
+        list.add(snapshot);
+        for (int ply = 0; ply < history.size(); ply++) {
+            int move = history.move(ply);
+            game.doMove(move);
+            snapshot = snapshotAfter(snapshot, game.board, move);
+            list.add(snapshot);
+        }
+        return list;
+    }
+
+    /**
+     * Takes the snapshot after a move from the one before it, copying over
+     * only the squares the move changed rather than the whole board
+     *
+     * @param before the snapshot from before the move
+     * @param board  the board the move has just been played on
+     * @param move   the packed move
+     */
+    private static BoardSnapshot snapshotAfter(BoardSnapshot before, ChessBoard board, int move) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        ChessPiece moved = board.pieceAt(to);
+        BoardSnapshot after = before.with(from, null).with(to, moved);
+        if (moved.getPieceType() == ChessPiece.PieceType.PAWN && (from & 7) != (to & 7)) {
+            // the square beside the start, on the end file, is empty after an en passant capture
+            int beside = (from & ~7) | (to & 7);
+            after = after.with(beside, board.pieceAt(beside));
+        } else if (isCastle(moved, from, to)) {
+            int rookFrom = (to > from) ? from + 3 : from - 4;
+            int rookTo = (from + to) / 2;
+            after = after.with(rookFrom, null).with(rookTo, board.pieceAt(rookTo));
+        }
+        return after;
+    }
+
+    private static boolean isCastle(ChessPiece piece, int from, int to) {
+        return piece.getPieceType() == ChessPiece.PieceType.KING && Math.abs(to - from) == 2;
+    }
+
+    /**
+     * A pawn changing files onto the square behind a pawn that just moved two
+     * squares; that square is always empty, so no ordinary capture lands there
+     */
+    private static boolean isEnPassant(ChessPiece piece, int from, int to, int enPassantFile) {
+        if (piece.getPieceType() != ChessPiece.PieceType.PAWN || (from & 7) == (to & 7)) {
+            return false;
+        }
+        int targetRow = (piece.getTeamColor() == TeamColor.WHITE) ? 5 : 2;
+        return (to & 7) == enPassantFile && (to >>> 3) == targetRow;
+    }
+
+    /**
+     * Moves the rook that goes with a castling king, or puts it back
+     */
+    private void moveCastlingRook(int kingFrom, int kingTo, boolean undoing) {
+        int rookFrom = (kingTo > kingFrom) ? kingFrom + 3 : kingFrom - 4;
+        int rookTo = (kingFrom + kingTo) / 2;
+        if (undoing) {
+            board.setPiece(rookFrom, board.pieceAt(rookTo));
+            board.setPiece(rookTo, null);
+        } else {
+            board.setPiece(rookTo, board.pieceAt(rookFrom));
+            board.setPiece(rookFrom, null);
+        }
+    }
+
+    /**
+     * Works out the en passant file after a move. It is only recorded when an
+     * enemy pawn is actually beside the pawn that moved two squares, so that
+     * positions which only differ by an unusable en passant square hash alike.
+     */
+    private int enPassantFileAfter(ChessPiece piece, int from, int to) {
+        if (piece.getPieceType() != ChessPiece.PieceType.PAWN || Math.abs(to - from) != 16) {
+            return -1;
+        }
+        TeamColor enemy = (piece.getTeamColor() == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
+        long enemyPawns = board.getBitBoard().pieces(enemy, ChessPiece.PieceType.PAWN);
+        // the squares beside the pawn are the ones a pawn on its skipped square would attack
+        int skipped = (from + to) / 2;
+        long beside = Attacks.pawn(piece.getTeamColor(), skipped) & ~BitBoard.bit(to);
+        return ((beside & enemyPawns) != 0) ? to & 7 : -1;
+    }
 
     /**
      * Makes a move in a chess game
@@ -105,97 +592,52 @@ public class ChessGame {
      * @throws InvalidMoveException if move is invalid
      */
     public void makeMove(ChessMove move) throws InvalidMoveException {
-        TeamColor opposingTeam;
-        if (turn == TeamColor.BLACK) {
-            opposingTeam = TeamColor.WHITE;
+        // squares off the board would pack into real ones, so turn them away first
+        if (!move.getStartPosition().isOnBoard() || !move.getEndPosition().isOnBoard()) {
+            throw new InvalidMoveException("Invalid move: " + move + " leaves the board");
+        }
+        ChessPiece.PieceType promotion = move.getPromotionPiece();
+        if (promotion == ChessPiece.PieceType.KING || promotion == ChessPiece.PieceType.PAWN) {
+            throw new InvalidMoveException("Invalid move: a pawn cannot be promoted to a " + promotion);
         }
-        else { opposingTeam = TeamColor.BLACK; }
-
         ChessPiece currPiece = board.getPiece(move.getStartPosition());
         // if the starting position of the move does not have a piece there, throw error
         if (currPiece == null) {
             throw new InvalidMoveException("Invalid move: No piece found");
         }
-        if (currPiece.getTeamColor() == opposingTeam) {
+        if (currPiece.getTeamColor() != turn) {
             throw new InvalidMoveException("Invalid move: That piece is not on your team");
         }
-        // get valid moves
-        Collection<ChessMove> currMoves = validMoves(move.getStartPosition());
         // check if the desired move is in the list of valid moves. if it is, make the move
-        for (ChessMove currMove : currMoves) {
-            // move the piece to that place, capture a piece if there was one there, change the team turn
-            // check if pawn needs to be promoted
-            if (currMove.equals(move)) {
-                ChessPiece capturedPiece = board.getPiece(currMove.getEndPosition());
-                if (capturedPiece != null) {
-                    capturedPieces.add(capturedPiece);
-                }
-                if (move.getPromotionPiece() != null) {
-                    currPiece.promote(move.getPromotionPiece());
-                }
-                board.setPiece(currMove.getEndPosition(), currPiece);
-                board.setPiece(currMove.getStartPosition(), null);
-
-                turn = opposingTeam;
-                return;
-            }
+        int packed = PackedMove.of(move);
+        if (!currentLegalMoves().contains(packed)) {
+            throw new InvalidMoveException("Invalid move: " + move);
+        }
+        long keyBefore = positionKey();
+        doMove(packed);
+        legalMoveCache = null;
+        if (snapshots != null && snapshots.size() == history.size() && snapshotsKey == keyBefore) {
+            snapshots.add(snapshotAfter(snapshots.get(snapshots.size() - 1), board, packed));
+            snapshotsKey = positionKey();
         }
-        throw new InvalidMoveException("Invalid move: " + move);
     }
 
-    private ChessPosition findKing(TeamColor teamColor) {
-        for (int i = 1; i < 9; i++) {
-            for (int j = 1; j < 9; j++) {
-                ChessPiece currPiece = board.getPiece(new ChessPosition(i, j));
-                if (currPiece != null && currPiece.getTeamColor() == teamColor
-                        && currPiece.getPieceType() == ChessPiece.PieceType.KING) {
-                    return new ChessPosition(i, j);
-                }
-            }
+    private boolean anyLegalMoves(TeamColor teamColor) {
+        if (teamColor == turn) {
+            return currentLegalMoves().count() > 0;
         }
-        return null;
-    }
-
-    private boolean isPositionUnderAttack(ChessPosition position, TeamColor teamColor) {
-        for (int i = 1; i < 9; i++) {
-            for (int j = 1; j < 9; j++) {
-                ChessPiece currPiece = board.getPiece(new ChessPosition(i, j));
-                if (currPiece == null || currPiece.getTeamColor() == teamColor) {
-                    continue;
-                }
-                Collection<ChessMove> moves = currPiece.pieceMoves(board, new ChessPosition(i, j));
-                for (ChessMove move : moves) {
-                    if (move.getEndPosition().equals(position)) {
-                        return true;
-                    }
-                }
+        int[] moves = new int[MoveGenerator.MAX_PIECE_MOVES];
+        long team = board.getBitBoard().occupancy(teamColor);
+        while (team != 0) {
+            int square = Long.numberOfTrailingZeros(team);
+            team &= team - 1;
+            if (legalMoves(square, moves) > 0) {
+                return true;
             }
         }
         return false;
     }
 
-    private boolean hasMoves(TeamColor teamColor) {
-        for (int i = 1; i < 9; i++) {
-            for (int j = 1; j < 9; j++) {
-                ChessPiece currPiece = board.getPiece(new ChessPosition(i, j));
-                if (currPiece == null) { continue; }
-                if (currPiece.getTeamColor() != teamColor) {
-                    continue;
-                }
-                Collection<ChessMove> moves = validMoves(new ChessPosition(i, j));
-                if (!moves.isEmpty()) {
-                    if (teamColor == TeamColor.BLACK) {
-                        turn = TeamColor.WHITE;
-                    }
-                    else { turn = TeamColor.BLACK; }
-                    return false;
-                }
-
-            }
-        }
-        return true;
-    }
-
     /**
      * Determines if the given team is in check
      *
@@ -203,13 +645,13 @@ public class ChessGame {
      * @return True if the specified team is in check
      */
     public boolean isInCheck(TeamColor teamColor) {
-        Collection<ChessPiece> opposingPieces = new ArrayList<>();
-        ChessPosition teamKing = findKing(teamColor);
-        if (teamKing == null) {
+        BitBoard bits = board.getBitBoard();
+        int teamKing = bits.kingSquare(teamColor);
+        if (teamKing < 0) {
             throw new RuntimeException("No King found");
         }
-
-        return isPositionUnderAttack(teamKing, teamColor);
+        TeamColor opposingTeam = (teamColor == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
+        return Attacks.isAttacked(bits, teamKing, opposingTeam, bits.occupied());
     }
 
     /**
@@ -219,18 +661,10 @@ public class ChessGame {
      * @return True if the specified team is in checkmate
      */
     public boolean isInCheckmate(TeamColor teamColor) {
-        if (!hasMoves(teamColor)) { return false; }
-        if (teamColor == TeamColor.BLACK) {
-            turn = TeamColor.WHITE;
+        if (teamColor == turn) {
+            return status() == GameStatus.CHECKMATE;
         }
-        else { turn = TeamColor.BLACK; }
-        return true;
-    }
-
-    public boolean isInCheckmateHelper(TeamColor teamColor, TeamColor activeColor) {
-        boolean checkmate = isInCheckmate(teamColor);
-        turn = activeColor;
-        return checkmate;
+        return isInCheck(teamColor) && !anyLegalMoves(teamColor);
     }
 
     /**
@@ -241,22 +675,10 @@ public class ChessGame {
      * @return True if the specified team is in stalemate, otherwise false
      */
     public boolean isInStalemate(TeamColor teamColor) {
-        if (isInCheck(teamColor)) {
-            if (teamColor == TeamColor.BLACK) {
-                turn = TeamColor.WHITE;
-            }
-            else { turn = TeamColor.BLACK; }
-            return false;
+        if (teamColor == turn) {
+            return status() == GameStatus.STALEMATE;
         }
-        if (!hasMoves(teamColor)) { return false; }
-
-        return true;
-    }
-
-    public boolean isInStalemateHelper(TeamColor teamColor, TeamColor activeColor) {
-        boolean checkmate = isInStalemate(teamColor);
-        turn = activeColor;
-        return checkmate;
+        return !isInCheck(teamColor) && !anyLegalMoves(teamColor);
     }
 
     /**
@@ -266,6 +688,50 @@ public class ChessGame {
      */
     public void setBoard(ChessBoard board) {
         this.board = board;
+        // a board on its own has no history, so assume that kings and rooks still
+        // on their starting squares have never moved
+        castlingRights = CastlingRights.fromBoard(board);
+        enPassantFile = -1;
+        halfmoveClock = 0;
+        history.clear();
+        snapshots = null;
+    }
+
+    /**
+     * @return the {@link CastlingRights} still held in this game
+     */
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    /**
+     * @return the file (0-7) of a pawn that can be captured en passant this
+     * turn, or -1 if there is none
+     */
+    public int getEnPassantFile() {
+        return enPassantFile;
+    }
+
+    /**
+     * Sets the castling, en passant and halfmove clock state directly, for
+     * positions loaded from outside a game such as {@link Fen}. The rights are
+     * limited to those the board allows, and the en passant file is dropped
+     * unless a pawn of the side to move could use it.
+     */
+    void setPositionState(int castlingRights, int enPassantFile, int halfmoveClock) {
+        this.halfmoveClock = halfmoveClock;
+        this.castlingRights = castlingRights & CastlingRights.fromBoard(board);
+        this.enPassantFile = -1;
+        if (enPassantFile >= 0) {
+            TeamColor mover = (turn == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
+            int to = ((mover == TeamColor.WHITE) ? 24 : 32) + enPassantFile;
+            ChessPiece pawn = board.pieceAt(to);
+            if (pawn != null && pawn.equals(ChessPiece.of(mover, ChessPiece.PieceType.PAWN))) {
+                int from = (mover == TeamColor.WHITE) ? to - 16 : to + 16;
+                this.enPassantFile = enPassantFileAfter(pawn, from, to);
+            }
+        }
+        legalMoveCache = null;
     }
 
     /**
@@ -277,6 +743,33 @@ public class ChessGame {
         return board;
     }
 
+    /**
+     * Scores the position statically, from material and where each piece
+     * stands (see {@link PieceSquareTables}). The board keeps the score up to
+     * date as pieces move, so this is constant time and never looks at the
+     * squares.
+     *
+     * @return the score in centipawns for the team whose turn it is, positive
+     * when that team is ahead
+     */
+    public int evaluate() {
+        int score = board.getBitBoard().evaluation();
+        return (turn == TeamColor.WHITE) ? score : -score;
+    }
+
+    /**
+     * Gets a 64-bit Zobrist hash of the position: the pieces on the board,
+     * whose turn it is, the castling rights and the en passant file. Equal
+     * positions always have equal keys, and the key is kept up to date as
+     * pieces move, so this costs the same on every call.
+     *
+     * @return the key of the current position
+     */
+    public long positionKey() {
+        long key = board.getBitBoard().key() ^ Zobrist.castling(castlingRights) ^ Zobrist.enPassant(enPassantFile);
+        return (turn == TeamColor.BLACK) ? key ^ Zobrist.SIDE : key;
+    }
+
     public void setGameOver() {
         gameOver = true;
     }
@@ -294,12 +787,14 @@ public class ChessGame {
             return false;
         }
         ChessGame chessGame = (ChessGame) o;
-        return turn == chessGame.turn && Objects.equals(board, chessGame.board) && Objects.equals(capturedPieces, chessGame.capturedPieces);
+        return turn == chessGame.turn && castlingRights == chessGame.castlingRights
+                && enPassantFile == chessGame.enPassantFile && Objects.equals(board, chessGame.board)
+                && Arrays.equals(capturedCounts, chessGame.capturedCounts);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(turn, board, capturedPieces);
+        return Long.hashCode(positionKey());
     }
 
     @Override
@@ -307,7 +802,7 @@ public class ChessGame {
         return "ChessGame{" +
                 "turn=" + turn +
                 ", board=" + board +
-                ", capturedPieces=" + capturedPieces +
+                ", capturedCounts=" + Arrays.toString(capturedCounts) +
                 '}';
     }
 }
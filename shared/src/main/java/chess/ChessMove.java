@@ -10,6 +10,32 @@ import java.util.Objects;
  */
 public class ChessMove {
 
+    // shared instances of every move a piece could ever make, indexed by PackedMove
+    private static final ChessMove[] MOVES = new ChessMove[1 << 15];
+
+    static {
+        for (int from = 0; from < BitBoard.SQUARES; from++) {
+            long targets = Attacks.queen(from, 0) | Attacks.knight(from);
+            while (targets != 0) {
+                int to = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+                MOVES[PackedMove.of(from, to)] = new ChessMove(ChessPosition.of(from), ChessPosition.of(to), null);
+                // pawns stepping onto the last row also come with each promotion
+                int fromRow = BitBoard.row(from);
+                int toRow = BitBoard.row(to);
+                boolean pawnStep = Math.abs(BitBoard.column(from) - BitBoard.column(to)) <= 1;
+                if (pawnStep && ((fromRow == 7 && toRow == 8) || (fromRow == 2 && toRow == 1))) {
+                    for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+                        if (type != ChessPiece.PieceType.KING && type != ChessPiece.PieceType.PAWN) {
+                            MOVES[PackedMove.of(from, to, type)] =
+                                    new ChessMove(ChessPosition.of(from), ChessPosition.of(to), type);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
     private final ChessPosition startPosition;
     private final ChessPosition endPosition;
     private final ChessPiece.PieceType promotionPiece;
@@ -21,6 +47,37 @@ public class ChessMove {
         this.promotionPiece = promotionPiece;
     }
 
+    /**
+     * Gets the shared instance of a move instead of allocating a new one.
+     * Moves no piece could make are still created on demand.
+     *
+     * @return a move equal to {@code new ChessMove(startPosition, endPosition, promotionPiece)}
+     */
+    public static ChessMove of(ChessPosition startPosition, ChessPosition endPosition,
+                               ChessPiece.PieceType promotionPiece) {
+        if (startPosition.isOnBoard() && endPosition.isOnBoard()) {
+            ChessMove move = MOVES[PackedMove.of(BitBoard.square(startPosition), BitBoard.square(endPosition),
+                    promotionPiece)];
+            if (move != null) {
+                return move;
+            }
+        }
+        return new ChessMove(startPosition, endPosition, promotionPiece);
+    }
+
+    /**
+     * @param move a move encoded with {@link PackedMove}
+     * @return the shared instance of that move
+     */
+    static ChessMove of(int move) {
+        ChessMove shared = MOVES[move & (MOVES.length - 1)];
+        if (shared != null) {
+            return shared;
+        }
+        return new ChessMove(ChessPosition.of(PackedMove.from(move)), ChessPosition.of(PackedMove.to(move)),
+                PackedMove.promotion(move));
+    }
+
     /**
      * @return ChessPosition of starting location
      */
@@ -68,6 +125,7 @@ public class ChessMove {
     }
     @Override
     public int hashCode() {
-        return Objects.hash(startPosition, endPosition, promotionPiece);
+        int promotion = (promotionPiece == null) ? 0 : promotionPiece.ordinal() + 1;
+        return (startPosition.hashCode() * 257 + endPosition.hashCode()) * 7 + promotion;
     }
 }
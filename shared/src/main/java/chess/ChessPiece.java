@@ -3,7 +3,6 @@ package chess;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.Objects;
 
 /**
  * Represents a single chess piece
@@ -13,14 +12,46 @@ import java.util.Objects;
  */
 public class ChessPiece {
 
+    // one immutable piece for every color and type, indexed like the BitBoard piece masks
+    private static final ChessPiece[] SHARED = new ChessPiece[12];
+
+    static {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (PieceType type : PieceType.values()) {
+                ChessPiece piece = new ChessPiece(color, type);
+                piece.shared = true;
+                SHARED[BitBoard.index(color, type)] = piece;
+            }
+        }
+    }
+
     private final ChessGame.TeamColor pieceColor;
     private PieceType type;
+    // shared pieces sit on many boards at once, so they can never change
+    private transient boolean shared;
 
     public ChessPiece(ChessGame.TeamColor pieceColor, ChessPiece.PieceType type) {
         this.pieceColor = pieceColor;
         this.type = type;
     }
 
+    /**
+     * Gets the shared, immutable piece of a color and type. Boards built from
+     * these pieces can be copied by copying references.
+     *
+     * @return the one shared instance for this color and type
+     */
+    public static ChessPiece of(ChessGame.TeamColor pieceColor, PieceType type) {
+        return SHARED[BitBoard.index(pieceColor, type)];
+    }
+
+    /**
+     * @return the shared instance equal to the given piece, or null for null
+     */
+    public static ChessPiece of(ChessPiece piece) {
+        return (piece == null) ? null : of(piece.pieceColor, piece.type);
+    }
+
     /**
      * The various different chess piece options
      */
@@ -47,7 +78,17 @@ public class ChessPiece {
         return type;
     }
 
+    /**
+     * Changes the type of this piece in place. The game promotes pawns by
+     * putting a new piece on the square instead, because a piece changed here
+     * is not noticed by the board holding it.
+     *
+     * @throws UnsupportedOperationException if this is a shared piece from {@link #of}
+     */
     public void promote(PieceType type) {
+        if (shared) {
+            throw new UnsupportedOperationException("Shared pieces cannot be promoted");
+        }
         this.type = type;
     }
 
@@ -61,86 +102,15 @@ public class ChessPiece {
      * @return Collection of valid moves
      */
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
-        ChessPiece piece = board.getPiece(myPosition);
-        Collection<ChessMove> moves = new ArrayList<>();
-        int currRow = myPosition.getRow();
-        int currCol = myPosition.getColumn();
-        if (piece.getPieceType() == PieceType.KING) {
-            // directions this piece can move
-            int directions[][] = {{1,-1}, {1,0}, {1,1}, {0,1}, {-1,1}, {-1,0}, {-1,-1}, {0,-1}};
-
-            moves = getMovesOneSpace(board, directions, currRow, currCol);
-        }
-        else if (piece.getPieceType() == PieceType.QUEEN) {
-            // directions this piece can move
-            int directions[][] = {{1,-1}, {1,0}, {1,1}, {0,1}, {-1,1}, {-1,0}, {-1,-1}, {0,-1}};
-            moves = getMovesAllSpaces(board, directions, currRow, currCol);
-        }
-        else if (piece.getPieceType() == PieceType.BISHOP) {
-            // directions this piece can move
-            int directions[][] = {{1,-1}, {1,1}, {-1,1}, {-1,-1}};
-
-            moves = getMovesAllSpaces(board, directions, currRow, currCol);
-        }
-        else if (piece.getPieceType() == PieceType.KNIGHT) {
-            int directions[][] = {{1, -2}, {2,-1}, {2,1}, {1,2}, {-1, 2}, {-2, 1}, {-2,-1}, {-1,-2}};
-
-            moves = getMovesOneSpace(board, directions, currRow, currCol);
-        }
-        else if (piece.getPieceType() == PieceType.ROOK) {
-            // directions this piece can move
-            int directions[][] = {{0,-1}, {1,0}, {0,1}, {-1,0}};
-
-            moves = getMovesAllSpaces(board, directions, currRow, currCol);
-        }
-        else if (piece.getPieceType() == PieceType.PAWN) {
-            boolean canPromote = false;
-            // if on the last block before the edge, they can promote if they move
-            if ((piece.pieceColor == ChessGame.TeamColor.WHITE && currRow == 7) || (piece.pieceColor == ChessGame.TeamColor.BLACK && currRow == 2)) {
-                canPromote = true;
-            }
-            boolean firstMove = false;
-            // if they are in starting row, it is their first move
-            if ((piece.pieceColor == ChessGame.TeamColor.WHITE && currRow == 2) || (piece.pieceColor == ChessGame.TeamColor.BLACK && currRow == 7)) {
-                firstMove = true;
-            }
-            int directions[][] = {{1, -1}, {1, 1}};
-            if (piece.pieceColor == ChessGame.TeamColor.BLACK) {
-                for (int direction[] : directions) { direction[0] = -1; }
-            }
-
-            int checkRow =  currRow + directions[0][0];
-            int checkCol =  currCol;
-            if (board.getPiece(new ChessPosition(checkRow, checkCol)) == null) {
-                addPawnMoves(moves, myPosition, new ChessPosition(checkRow, checkCol), canPromote);
-
-                if (firstMove && board.getPiece(new ChessPosition(checkRow + directions[0][0], checkCol)) == null) {
-                    moves.add(new ChessMove(myPosition, new ChessPosition(checkRow + directions[0][0], checkCol), null));
-                }
-            }
-
-            for (int direction[] : directions) {
-                checkRow =  currRow + direction[0];
-                checkCol =  currCol + direction[1];
-                //check that we are within the bounds of the board
-                if (checkRow <= 0 || checkCol <= 0 || checkRow > 8 || checkCol > 8) {
-                    continue;
-                }
-                ChessPiece checkPiece = board.getPiece(new ChessPosition(checkRow, checkCol));
-                if (checkPiece == null) {
-                    continue;
-                }
-                if (checkPiece.pieceColor != pieceColor) {
-                    addPawnMoves(moves, myPosition, new ChessPosition(checkRow, checkCol), canPromote);
-                }
-            }
-        }
-        return moves;
+        // adapter over the buffer-based generator for callers that want ChessMove objects
+        int[] moves = new int[MoveGenerator.MAX_PIECE_MOVES];
+        int count = MoveGenerator.pieceMoves(board, BitBoard.square(myPosition), moves, 0);
+        return PackedMove.toChessMoves(moves, count);
     }
 
     public Collection<ChessMove> getMovesOneSpace(ChessBoard board, int[][] directions, int currRow, int currCol) {
         Collection<ChessMove> moves = new ArrayList<>();
-        ChessPosition myPosition = new ChessPosition(currRow, currCol);
+        ChessPosition myPosition = ChessPosition.of(currRow, currCol);
         // loop through those direction changes, add to current row and column
         for (int direction[] : directions) {
             int checkRow =  currRow + direction[0];
@@ -150,14 +120,14 @@ public class ChessPiece {
             if (checkRow <= 0 || checkCol <= 0 || checkRow > 8 || checkCol > 8) {
                 continue;
             }
-            ChessPiece checkPiece = board.getPiece(new ChessPosition(checkRow, checkCol));
+            ChessPiece checkPiece = board.getPiece(ChessPosition.of(checkRow, checkCol));
             // if there is no piece in that spot, add it to valid moves
             if (checkPiece == null) {
-                moves.add(new ChessMove(myPosition, new ChessPosition(checkRow, checkCol), null));
+                moves.add(ChessMove.of(myPosition, ChessPosition.of(checkRow, checkCol), null));
             }
             // if there is a piece that belongs to the other team, capture it
             else if(checkPiece.pieceColor != pieceColor) {
-                moves.add(new ChessMove(myPosition, new ChessPosition(checkRow, checkCol), null));
+                moves.add(ChessMove.of(myPosition, ChessPosition.of(checkRow, checkCol), null));
             }
         }
         return moves;
@@ -165,7 +135,7 @@ public class ChessPiece {
 
     public Collection<ChessMove> getMovesAllSpaces(ChessBoard board, int[][] directions, int currRow, int currCol) {
         Collection<ChessMove> moves = new ArrayList<>();
-        ChessPosition myPosition = new ChessPosition(currRow, currCol);
+        ChessPosition myPosition = ChessPosition.of(currRow, currCol);
         // loop through those direction changes, add to current row and column
         for (int direction[] : directions) {
             int checkRow =  currRow + direction[0];
@@ -173,14 +143,14 @@ public class ChessPiece {
 
             // add another iteration of that direction until out of bounds
             while (checkRow > 0 && checkCol > 0 && checkRow <= 8 && checkCol <= 8) {
-                ChessPiece checkPiece = board.getPiece(new ChessPosition(checkRow, checkCol));
+                ChessPiece checkPiece = board.getPiece(ChessPosition.of(checkRow, checkCol));
                 // if there is no piece in that spot, add it to valid moves
                 if (checkPiece == null) {
-                    moves.add(new ChessMove(myPosition, new ChessPosition(checkRow, checkCol), null));
+                    moves.add(ChessMove.of(myPosition, ChessPosition.of(checkRow, checkCol), null));
                 }
                 // if there is a piece that belongs to the other team, capture it and break, we cannot go further
                 else if(checkPiece.pieceColor != pieceColor) {
-                    moves.add(new ChessMove(myPosition, new ChessPosition(checkRow, checkCol), null));
+                    moves.add(ChessMove.of(myPosition, ChessPosition.of(checkRow, checkCol), null));
                     break;
                 }
                 else {
@@ -195,13 +165,13 @@ public class ChessPiece {
 
     public void addPawnMoves(Collection<ChessMove> moves, ChessPosition from, ChessPosition to, boolean canPromote) {
         if (canPromote) {
-            moves.add(new ChessMove(from, to, PieceType.QUEEN));
-            moves.add(new ChessMove(from, to, PieceType.BISHOP));
-            moves.add(new ChessMove(from, to, PieceType.KNIGHT));
-            moves.add(new ChessMove(from, to, PieceType.ROOK));
+            moves.add(ChessMove.of(from, to, PieceType.QUEEN));
+            moves.add(ChessMove.of(from, to, PieceType.BISHOP));
+            moves.add(ChessMove.of(from, to, PieceType.KNIGHT));
+            moves.add(ChessMove.of(from, to, PieceType.ROOK));
         }
         else {
-            moves.add(new ChessMove(from, to, null));
+            moves.add(ChessMove.of(from, to, null));
         }
     }
 
@@ -219,7 +189,7 @@ public class ChessPiece {
 
     @Override
     public int hashCode() {
-        return Objects.hash(pieceColor, type);
+        return BitBoard.index(pieceColor, type);
     }
 
     @Override
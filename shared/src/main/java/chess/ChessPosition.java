@@ -1,7 +1,5 @@
 package chess;
 
-import java.util.Objects;
-
 /**
  * Represents a single square position on a chess board
  * <p>
@@ -10,6 +8,15 @@ import java.util.Objects;
  */
 public class ChessPosition {
 
+    // the 64 squares of the board, indexed the same way as BitBoard
+    private static final ChessPosition[] SQUARES = new ChessPosition[BitBoard.SQUARES];
+
+    static {
+        for (int square = 0; square < SQUARES.length; square++) {
+            SQUARES[square] = new ChessPosition(BitBoard.row(square), BitBoard.column(square));
+        }
+    }
+
     private final int row;
     private final int col;
 
@@ -18,6 +25,29 @@ public class ChessPosition {
         this.col = col;
     }
 
+    /**
+     * Gets the shared instance for a square instead of allocating a new one.
+     * Positions off the board are still created on demand.
+     *
+     * @param row 1-based row
+     * @param col 1-based column
+     * @return the position at that row and column
+     */
+    public static ChessPosition of(int row, int col) {
+        if (row < 1 || col < 1 || row > 8 || col > 8) {
+            return new ChessPosition(row, col);
+        }
+        return SQUARES[BitBoard.square(row, col)];
+    }
+
+    /**
+     * @param square square index as numbered by {@link BitBoard}
+     * @return the shared instance for that square
+     */
+    public static ChessPosition of(int square) {
+        return SQUARES[square];
+    }
+
     /**
      * @return which row this position is in
      * 1 codes for the bottom row
@@ -34,6 +64,13 @@ public class ChessPosition {
         return col;
     }
 
+    /**
+     * @return whether this position is one of the 64 squares of the board
+     */
+    public boolean isOnBoard() {
+        return row >= 1 && col >= 1 && row <= 8 && col <= 8;
+    }
+
     @Override
     public String toString() {
         return "ChessPosition[" + row +
@@ -55,6 +92,6 @@ public class ChessPosition {
 
     @Override
     public int hashCode() {
-        return Objects.hash(row, col);
+        return 31 * row + col;
     }
 }
@@ -0,0 +1,126 @@
+package chess;
+
+/**
+ * Reads positions written in Forsyth-Edwards Notation, the usual way chess
+ * positions are shared (for example
+ * {@code rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1}).
+ * <p>
+ * The piece placement, side to move, castling rights, en passant square and
+ * halfmove clock are used; the fullmove number is accepted but ignored. The
+ * fields after the side to move may be left off, in which case they are
+ * worked out from the board the same way {@link ChessGame#setBoard} does.
+ */
+public final class Fen {
+
+    public static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private Fen() {}
+
+    /**
+     * Builds a game from a FEN string
+     *
+     * @param fen the position to load
+     * @return a new game set up in that position
+     * @throws IllegalArgumentException if the string is not valid FEN
+     */
+    public static ChessGame parse(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        if (fields.length < 2) {
+            throw new IllegalArgumentException("FEN needs at least a board and a side to move: " + fen);
+        }
+        ChessBoard board = new ChessBoard();
+        String[] rows = fields[0].split("/");
+        if (rows.length != 8) {
+            throw new IllegalArgumentException("FEN board must have 8 rows: " + fen);
+        }
+        for (int i = 0; i < 8; i++) {
+            int row = 8 - i;
+            int col = 1;
+            for (char c : rows[i].toCharArray()) {
+                if (Character.isDigit(c)) {
+                    col += c - '0';
+                    continue;
+                }
+                if (col > 8) {
+                    throw new IllegalArgumentException("FEN row " + row + " is too long: " + fen);
+                }
+                board.addPiece(ChessPosition.of(row, col), piece(c));
+                col++;
+            }
+            if (col != 9) {
+                throw new IllegalArgumentException("FEN row " + row + " does not cover 8 columns: " + fen);
+            }
+        }
+        ChessGame.TeamColor turn = switch (fields[1]) {
+            case "w" -> ChessGame.TeamColor.WHITE;
+            case "b" -> ChessGame.TeamColor.BLACK;
+            default -> throw new IllegalArgumentException("FEN side to move must be w or b: " + fen);
+        };
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        game.setTeamTurn(turn);
+        if (fields.length > 2) {
+            int enPassantFile = (fields.length > 3) ? enPassantFile(fields[3], fen) : -1;
+            int halfmoveClock = (fields.length > 4) ? halfmoveClock(fields[4], fen) : 0;
+            game.setPositionState(castlingRights(fields[2], fen), enPassantFile, halfmoveClock);
+        }
+        return game;
+    }
+
+    private static int castlingRights(String field, String fen) {
+        if (field.equals("-")) {
+            return CastlingRights.NONE;
+        }
+        int rights = CastlingRights.NONE;
+        for (char c : field.toCharArray()) {
+            rights |= switch (c) {
+                case 'K' -> CastlingRights.WHITE_KINGSIDE;
+                case 'Q' -> CastlingRights.WHITE_QUEENSIDE;
+                case 'k' -> CastlingRights.BLACK_KINGSIDE;
+                case 'q' -> CastlingRights.BLACK_QUEENSIDE;
+                default -> throw new IllegalArgumentException("Unknown FEN castling right: " + c + " in " + fen);
+            };
+        }
+        return rights;
+    }
+
+    /**
+     * @return the file (0-7) of an en passant square such as e3, or -1 for "-"
+     */
+    private static int enPassantFile(String field, String fen) {
+        if (field.equals("-")) {
+            return -1;
+        }
+        if (field.length() != 2 || field.charAt(0) < 'a' || field.charAt(0) > 'h'
+                || (field.charAt(1) != '3' && field.charAt(1) != '6')) {
+            throw new IllegalArgumentException("FEN en passant square must be on row 3 or 6: " + fen);
+        }
+        return field.charAt(0) - 'a';
+    }
+
+    private static int halfmoveClock(String field, String fen) {
+        try {
+            int clock = Integer.parseInt(field);
+            if (clock >= 0) {
+                return clock;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException("FEN halfmove clock must be a number of at least 0: " + fen);
+    }
+
+    private static ChessPiece piece(char c) {
+        ChessGame.TeamColor color = Character.isUpperCase(c) ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+        ChessPiece.PieceType type = switch (Character.toLowerCase(c)) {
+            case 'k' -> ChessPiece.PieceType.KING;
+            case 'q' -> ChessPiece.PieceType.QUEEN;
+            case 'b' -> ChessPiece.PieceType.BISHOP;
+            case 'n' -> ChessPiece.PieceType.KNIGHT;
+            case 'r' -> ChessPiece.PieceType.ROOK;
+            case 'p' -> ChessPiece.PieceType.PAWN;
+            default -> throw new IllegalArgumentException("Unknown FEN piece: " + c);
+        };
+        return ChessPiece.of(color, type);
+    }
+}
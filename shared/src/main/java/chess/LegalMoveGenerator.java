@@ -0,0 +1,213 @@
+package chess;
+
+/**
+ * Generates only legal moves, without trying any of them out.
+ * <p>
+ * Before generating, it works out once which enemy pieces give check and
+ * which of the team's pieces are pinned to their king. A pinned piece may
+ * only move along the line between its king and the pinning piece, and while
+ * in check every other piece may only capture the checker or block it. The
+ * king is the one piece whose moves are still tested one by one, against the
+ * board with the king lifted off it so it cannot hide behind itself.
+ * <p>
+ * Castling and en passant depend on more than the board, so the rights and
+ * en passant file of the position are passed in alongside it.
+ */
+public final class LegalMoveGenerator {
+
+    private LegalMoveGenerator() {}
+
+    /**
+     * Writes every legal move of a team into the buffer
+     *
+     * @param board          the board to generate moves on
+     * @param team           whose pieces to move
+     * @param castlingRights the {@link CastlingRights} of the position
+     * @param enPassantFile  the file a pawn can be captured en passant on, or -1
+     * @param moves          buffer of at least {@link MoveGenerator#MAX_MOVES} entries
+     * @return how many moves were written
+     */
+    public static int generate(ChessBoard board, ChessGame.TeamColor team, int castlingRights, int enPassantFile,
+                               int[] moves) {
+        int count = generate(board, team, -1L, moves);
+        return specialMoves(board, team, castlingRights, enPassantFile, -1L, moves, count);
+    }
+
+    /**
+     * Writes the legal moves of the piece on a square into the buffer
+     *
+     * @param board          the board to generate moves on
+     * @param from           square of the piece to move
+     * @param castlingRights the {@link CastlingRights} of the position
+     * @param enPassantFile  the file a pawn can be captured en passant on, or -1
+     * @param moves          buffer of at least {@link MoveGenerator#MAX_PIECE_MOVES} entries
+     * @return how many moves were written
+     */
+    public static int pieceMoves(ChessBoard board, int from, int castlingRights, int enPassantFile, int[] moves) {
+        ChessPiece piece = board.pieceAt(from);
+        if (piece == null) {
+            return 0;
+        }
+        long mover = BitBoard.bit(from);
+        int count = generate(board, piece.getTeamColor(), mover, moves);
+        return specialMoves(board, piece.getTeamColor(), castlingRights, enPassantFile, mover, moves, count);
+    }
+
+    /**
+     * Appends the legal castling and en passant moves of a team. Every move
+     * written here has already been checked for leaving the king in danger.
+     *
+     * @param movers mask of the squares whose pieces should be moved
+     * @return the new number of entries in use
+     */
+    static int specialMoves(ChessBoard board, ChessGame.TeamColor team, int castlingRights, int enPassantFile,
+                            long movers, int[] moves, int count) {
+        int king = (team == ChessGame.TeamColor.WHITE) ? CastlingRights.WHITE_KING : CastlingRights.BLACK_KING;
+        if ((movers & BitBoard.bit(king)) != 0) {
+            count = castlingMoves(board, team, castlingRights, moves, count);
+        }
+        if (enPassantFile >= 0) {
+            count = enPassantMoves(board, team, enPassantFile, movers, moves, count);
+        }
+        return count;
+    }
+
+    private static int castlingMoves(ChessBoard board, ChessGame.TeamColor team, int castlingRights,
+                                     int[] moves, int count) {
+        boolean kingside = (castlingRights & CastlingRights.kingside(team)) != 0;
+        boolean queenside = (castlingRights & CastlingRights.queenside(team)) != 0;
+        if (!kingside && !queenside) {
+            return count;
+        }
+        BitBoard bits = board.getBitBoard();
+        int king = (team == ChessGame.TeamColor.WHITE) ? CastlingRights.WHITE_KING : CastlingRights.BLACK_KING;
+        if (bits.kingSquare(team) != king) {
+            return count;
+        }
+        ChessGame.TeamColor enemy = (team == ChessGame.TeamColor.WHITE)
+                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        long occupied = bits.occupied();
+        long rooks = bits.pieces(team, ChessPiece.PieceType.ROOK);
+        // a king may not castle out of check
+        if (Attacks.isAttacked(bits, king, enemy, occupied)) {
+            return count;
+        }
+        // the king may not pass through or land on an attacked square, but on the
+        // queenside the rook may pass a square the king never touches
+        if (kingside && (rooks & BitBoard.bit(king + 3)) != 0
+                && (occupied & (BitBoard.bit(king + 1) | BitBoard.bit(king + 2))) == 0
+                && !Attacks.isAttacked(bits, king + 1, enemy, occupied)
+                && !Attacks.isAttacked(bits, king + 2, enemy, occupied)) {
+            moves[count++] = PackedMove.of(king, king + 2);
+        }
+        if (queenside && (rooks & BitBoard.bit(king - 4)) != 0
+                && (occupied & (BitBoard.bit(king - 1) | BitBoard.bit(king - 2) | BitBoard.bit(king - 3))) == 0
+                && !Attacks.isAttacked(bits, king - 1, enemy, occupied)
+                && !Attacks.isAttacked(bits, king - 2, enemy, occupied)) {
+            moves[count++] = PackedMove.of(king, king - 2);
+        }
+        return count;
+    }
+
+    private static int enPassantMoves(ChessBoard board, ChessGame.TeamColor team, int enPassantFile, long movers,
+                                      int[] moves, int count) {
+        BitBoard bits = board.getBitBoard();
+        ChessGame.TeamColor enemy = (team == ChessGame.TeamColor.WHITE)
+                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        // the square the capturing pawn lands on, and the square of the pawn it takes
+        int target = ((team == ChessGame.TeamColor.WHITE) ? 40 : 16) + enPassantFile;
+        int victim = (team == ChessGame.TeamColor.WHITE) ? target - 8 : target + 8;
+        if (!bits.isEmpty(target) || (bits.pieces(enemy, ChessPiece.PieceType.PAWN) & BitBoard.bit(victim)) == 0) {
+            return count;
+        }
+        // own pawns that attack the target are the ones an enemy pawn there would attack
+        long pawns = Attacks.pawn(enemy, target) & bits.pieces(team, ChessPiece.PieceType.PAWN) & movers;
+        int king = bits.kingSquare(team);
+        while (pawns != 0) {
+            int from = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+            // two pawns leave the same row at once, which can uncover an attack no pin
+            // mask would see, so check the king against the board after the capture
+            long occupied = (bits.occupied() & ~BitBoard.bit(from) & ~BitBoard.bit(victim)) | BitBoard.bit(target);
+            if (king < 0 || Attacks.attackers(bits, king, enemy, occupied) == 0) {
+                moves[count++] = PackedMove.of(from, target);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @param movers mask of the squares whose pieces should be moved
+     */
+    private static int generate(ChessBoard board, ChessGame.TeamColor team, long movers, int[] moves) {
+        BitBoard bits = board.getBitBoard();
+        ChessGame.TeamColor enemy = (team == ChessGame.TeamColor.WHITE)
+                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        long own = bits.occupancy(team);
+        long occupied = bits.occupied();
+        int king = bits.kingSquare(team);
+        int count = 0;
+        if (king < 0) {
+            // without a king nothing can be in check or pinned
+            return generatePieces(board, own & movers, -1L, moves, count);
+        }
+
+        if ((movers & BitBoard.bit(king)) != 0) {
+            long targets = Attacks.king(king) & ~own;
+            long withoutKing = occupied & ~BitBoard.bit(king);
+            while (targets != 0) {
+                int to = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+                if (!Attacks.isAttacked(bits, to, enemy, withoutKing)) {
+                    moves[count++] = PackedMove.of(king, to);
+                }
+            }
+        }
+
+        long checkers = Attacks.attackers(bits, king, enemy, occupied);
+        if (Long.bitCount(checkers) > 1) {
+            // only the king can get out of a double check
+            return count;
+        }
+        long allowed = -1L;
+        if (checkers != 0) {
+            allowed = checkers | Attacks.between(king, Long.numberOfTrailingZeros(checkers));
+        }
+
+        // enemy sliders that would attack the king if at most the team's own pieces were in the way
+        long enemyOccupancy = bits.occupancy(enemy);
+        long queens = bits.pieces(enemy, ChessPiece.PieceType.QUEEN);
+        long snipers = (Attacks.rook(king, enemyOccupancy)
+                & (bits.pieces(enemy, ChessPiece.PieceType.ROOK) | queens))
+                | (Attacks.bishop(king, enemyOccupancy)
+                & (bits.pieces(enemy, ChessPiece.PieceType.BISHOP) | queens));
+        long pinned = 0;
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long line = Attacks.between(king, sniper);
+            long blockers = line & occupied;
+            if (Long.bitCount(blockers) == 1) {
+                // the one piece in the way is pinned, and can only move along the pin
+                pinned |= blockers;
+                if ((blockers & movers) != 0) {
+                    int from = Long.numberOfTrailingZeros(blockers);
+                    count = MoveGenerator.pieceMoves(board, from, allowed & (line | BitBoard.bit(sniper)),
+                            moves, count);
+                }
+            }
+        }
+
+        long pieces = own & movers & ~pinned & ~BitBoard.bit(king);
+        return generatePieces(board, pieces, allowed, moves, count);
+    }
+
+    private static int generatePieces(ChessBoard board, long pieces, long allowed, int[] moves, int count) {
+        while (pieces != 0) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            count = MoveGenerator.pieceMoves(board, from, allowed, moves, count);
+        }
+        return count;
+    }
+}
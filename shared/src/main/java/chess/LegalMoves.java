@@ -0,0 +1,63 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * Every legal move of the side to move in one position, and the status that
+ * follows from them, tagged with that position's
+ * {@link ChessGame#positionKey()} so a cached copy can tell when the game has
+ * moved on. Instances are never modified after construction.
+ */
+final class LegalMoves {
+    final long key;
+    final ChessGame.GameStatus status;
+    private final int[] moves;
+
+    LegalMoves(long key, int[] moves, int count, boolean inCheck) {
+        this.key = key;
+        this.moves = Arrays.copyOf(moves, count);
+        if (count == 0) {
+            status = inCheck ? ChessGame.GameStatus.CHECKMATE : ChessGame.GameStatus.STALEMATE;
+        } else {
+            status = inCheck ? ChessGame.GameStatus.CHECK : ChessGame.GameStatus.IN_PROGRESS;
+        }
+    }
+
+    int count() {
+        return moves.length;
+    }
+
+    boolean contains(int move) {
+        for (int legal : moves) {
+            if (legal == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Copies all the moves into a buffer
+     *
+     * @return how many moves were written
+     */
+    int copyTo(int[] buffer) {
+        System.arraycopy(moves, 0, buffer, 0, moves.length);
+        return moves.length;
+    }
+
+    /**
+     * Copies the moves that start on one square into a buffer
+     *
+     * @return how many moves were written
+     */
+    int copyFrom(int square, int[] buffer) {
+        int count = 0;
+        for (int move : moves) {
+            if (PackedMove.from(move) == square) {
+                buffer[count++] = move;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,134 @@
+package chess;
+
+/**
+ * Generates pseudo-legal moves (moves that may still leave the king in
+ * danger) as {@link PackedMove} ints written into a caller-supplied buffer.
+ * <p>
+ * Nothing is allocated while generating, so a caller that keeps its buffer
+ * around can generate moves as often as it likes without creating garbage.
+ */
+public final class MoveGenerator {
+
+    /**
+     * Buffer size that fits every move of a whole team in any reachable position
+     */
+    public static final int MAX_MOVES = 256;
+
+    /**
+     * Buffer size that fits every move of a single piece (a queen in the open has 27)
+     */
+    public static final int MAX_PIECE_MOVES = 32;
+
+    private MoveGenerator() {}
+
+    /**
+     * Writes the pseudo-legal moves of every piece of a team into the buffer
+     *
+     * @param board the board to generate moves on
+     * @param team  whose pieces to move
+     * @param moves buffer of at least {@link #MAX_MOVES} entries
+     * @return how many moves were written
+     */
+    public static int generate(ChessBoard board, ChessGame.TeamColor team, int[] moves) {
+        int count = 0;
+        long pieces = board.getBitBoard().occupancy(team);
+        while (pieces != 0) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            count = pieceMoves(board, square, moves, count);
+        }
+        return count;
+    }
+
+    /**
+     * Appends the pseudo-legal moves of the piece on a square to the buffer
+     *
+     * @param board the board to generate moves on
+     * @param from  square of the piece to move
+     * @param moves buffer to write into
+     * @param count how many entries of the buffer are already in use
+     * @return the new number of entries in use
+     */
+    public static int pieceMoves(ChessBoard board, int from, int[] moves, int count) {
+        return pieceMoves(board, from, -1L, moves, count);
+    }
+
+    /**
+     * Appends the moves of the piece on a square that end on an allowed square
+     *
+     * @param allowed mask of the end squares to keep
+     * @return the new number of entries in use
+     */
+    static int pieceMoves(ChessBoard board, int from, long allowed, int[] moves, int count) {
+        ChessPiece piece = board.pieceAt(from);
+        if (piece == null) {
+            return count;
+        }
+        BitBoard bits = board.getBitBoard();
+        ChessGame.TeamColor color = piece.getTeamColor();
+        long targets = ~bits.occupancy(color) & allowed;
+        long occupied = bits.occupied();
+        return switch (piece.getPieceType()) {
+            case KING -> addMoves(from, Attacks.king(from) & targets, moves, count);
+            case KNIGHT -> addMoves(from, Attacks.knight(from) & targets, moves, count);
+            case BISHOP -> addMoves(from, Attacks.bishop(from, occupied) & targets, moves, count);
+            case ROOK -> addMoves(from, Attacks.rook(from, occupied) & targets, moves, count);
+            case QUEEN -> addMoves(from, Attacks.queen(from, occupied) & targets, moves, count);
+            case PAWN -> pawnMoves(bits, color, from, allowed, moves, count);
+        };
+    }
+
+    /**
+     * Adds a move from one square to each square of a target mask
+     */
+    static int addMoves(int from, long targets, int[] moves, int count) {
+        while (targets != 0) {
+            moves[count++] = PackedMove.of(from, Long.numberOfTrailingZeros(targets));
+            targets &= targets - 1;
+        }
+        return count;
+    }
+
+    private static int pawnMoves(BitBoard bits, ChessGame.TeamColor color, int from, long allowed,
+                                 int[] moves, int count) {
+        int row = from >>> 3;
+        int forward = (color == ChessGame.TeamColor.WHITE) ? 8 : -8;
+        int startRow = (color == ChessGame.TeamColor.WHITE) ? 1 : 6;
+        int to = from + forward;
+        if (to < 0 || to > 63) {
+            return count;
+        }
+        // a pawn that reaches the far edge has to promote
+        boolean canPromote = to < 8 || to > 55;
+
+        if (bits.isEmpty(to)) {
+            if ((allowed & BitBoard.bit(to)) != 0) {
+                count = addPawnMoves(from, to, canPromote, moves, count);
+            }
+            int doubleTo = to + forward;
+            if (row == startRow && bits.isEmpty(doubleTo) && (allowed & BitBoard.bit(doubleTo)) != 0) {
+                moves[count++] = PackedMove.of(from, doubleTo);
+            }
+        }
+        ChessGame.TeamColor enemy = (color == ChessGame.TeamColor.WHITE)
+                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        long captures = Attacks.pawn(color, from) & bits.occupancy(enemy) & allowed;
+        while (captures != 0) {
+            count = addPawnMoves(from, Long.numberOfTrailingZeros(captures), canPromote, moves, count);
+            captures &= captures - 1;
+        }
+        return count;
+    }
+
+    private static int addPawnMoves(int from, int to, boolean canPromote, int[] moves, int count) {
+        if (canPromote) {
+            moves[count++] = PackedMove.of(from, to, ChessPiece.PieceType.QUEEN);
+            moves[count++] = PackedMove.of(from, to, ChessPiece.PieceType.BISHOP);
+            moves[count++] = PackedMove.of(from, to, ChessPiece.PieceType.KNIGHT);
+            moves[count++] = PackedMove.of(from, to, ChessPiece.PieceType.ROOK);
+        } else {
+            moves[count++] = PackedMove.of(from, to);
+        }
+        return count;
+    }
+}
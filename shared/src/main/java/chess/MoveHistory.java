@@ -0,0 +1,227 @@
+package chess;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Every move played in a game, oldest first, with what is needed to take
+ * each one back and the key of the position it was played from.
+ * <p>
+ * A move takes 16 bits (see {@link PackedMove}) and its undo record a single
+ * int, so a whole game costs a few bytes per ply instead of a board per
+ * ply. The moved piece and whose turn it was are not stored: both can be
+ * read off the board once the move's end square is known. The history is
+ * saved with the game, so a game loaded back from the database can still be
+ * replayed, taken back and checked for repetitions. Only the moves and undo
+ * records actually played are saved; the keys follow from them and are
+ * worked out again as the game is loaded (see {@link ChessGame#afterLoad()}).
+ */
+@JsonAdapter(MoveHistory.Adapter.class)
+final class MoveHistory {
+    private short[] moves = new short[16];
+    // captured piece in the low 4 bits (0 for none, otherwise its BitBoard index
+    // plus one), then 4 bits of castling rights, 4 bits of en passant file plus
+    // one and the halfmove clock above those
+    private int[] states = new int[16];
+    // position keys from before each move, for repetition checks
+    private long[] keys = new long[16];
+    private int size;
+
+    private static final ChessPiece[] PIECES = new ChessPiece[13];
+
+    static {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+                PIECES[BitBoard.index(color, type) + 1] = ChessPiece.of(color, type);
+            }
+        }
+    }
+
+    MoveHistory() {}
+
+    /**
+     * @return a history holding the same moves that can grow independently
+     */
+    MoveHistory copy() {
+        MoveHistory copy = new MoveHistory();
+        copy.moves = Arrays.copyOf(moves, moves.length);
+        copy.states = Arrays.copyOf(states, states.length);
+        copy.keys = Arrays.copyOf(keys, keys.length);
+        copy.size = size;
+        return copy;
+    }
+
+    /**
+     * Records a move that is about to be played
+     *
+     * @param move           the packed move being played
+     * @param captured       the piece that was captured (for en passant, the pawn beside
+     *                       the end square), or null
+     * @param castlingRights the {@link CastlingRights} before the move
+     * @param enPassantFile  the en passant file before the move, or -1
+     * @param halfmoveClock  the halfmove clock before the move
+     * @param key            the position key before the move
+     */
+    void push(int move, ChessPiece captured, int castlingRights, int enPassantFile, int halfmoveClock, long key) {
+        if (size == moves.length) {
+            int capacity = size * 2;
+            moves = Arrays.copyOf(moves, capacity);
+            states = Arrays.copyOf(states, capacity);
+            keys = Arrays.copyOf(keys, capacity);
+        }
+        int capturedCode = (captured == null)
+                ? 0 : BitBoard.index(captured.getTeamColor(), captured.getPieceType()) + 1;
+        moves[size] = (short) move;
+        states[size] = capturedCode | (castlingRights << 4) | ((enPassantFile + 1) << 8) | (halfmoveClock << 12);
+        keys[size] = key;
+        size++;
+    }
+
+    /**
+     * Drops the most recent move. Read it with the top* accessors first.
+     */
+    void pop() {
+        size--;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    /**
+     * @return how many moves have been played
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the packed move played at a ply, counting from 0
+     */
+    int move(int ply) {
+        return moves[ply] & 0xFFFF;
+    }
+
+    int topMove() {
+        return move(size - 1);
+    }
+
+    ChessPiece topCaptured() {
+        return PIECES[states[size - 1] & 15];
+    }
+
+    int topCastlingRights() {
+        return (states[size - 1] >>> 4) & 15;
+    }
+
+    int topEnPassantFile() {
+        return ((states[size - 1] >>> 8) & 15) - 1;
+    }
+
+    int topHalfmoveClock() {
+        return states[size - 1] >>> 12;
+    }
+
+    /**
+     * Counts how often a position occurred before, looking only at positions
+     * with the same side to move within the last {@code plies} plies. A
+     * position can only repeat since the last capture or pawn move, so passing
+     * the halfmove clock keeps this from looking at the whole game.
+     *
+     * @param key   the key of the current position
+     * @param plies how far back positions could still match, normally the halfmove clock
+     * @return how many earlier positions have the same key
+     */
+    int repetitions(long key, int plies) {
+        int oldest = Math.max(0, size - plies);
+        int count = 0;
+        for (int i = size - 2; i >= oldest; i -= 2) {
+            if (keys[i] == key) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Saves a history as {@code {"moves":[...],"states":[...]}}, one entry per
+     * ply played. Also reads histories saved with their whole arrays, keys and
+     * size, as games were saved before, keeping only the plies they had played.
+     */
+    static final class Adapter extends TypeAdapter<MoveHistory> {
+
+        @Override
+        public void write(JsonWriter out, MoveHistory history) throws IOException {
+            if (history == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("moves").beginArray();
+            for (int ply = 0; ply < history.size; ply++) {
+                out.value(history.move(ply));
+            }
+            out.endArray();
+            out.name("states").beginArray();
+            for (int ply = 0; ply < history.size; ply++) {
+                out.value(history.states[ply]);
+            }
+            out.endArray();
+            out.endObject();
+        }
+
+        @Override
+        public MoveHistory read(JsonReader in) throws IOException {
+            MoveHistory history = new MoveHistory();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return history;
+            }
+            int[] moves = new int[0];
+            int[] states = new int[0];
+            int size = -1;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "moves" -> moves = readInts(in);
+                    case "states" -> states = readInts(in);
+                    case "size" -> size = in.nextInt();
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            if (size < 0 || size > Math.min(moves.length, states.length)) {
+                size = Math.min(moves.length, states.length);
+            }
+            int capacity = Math.max(16, size);
+            history.moves = new short[capacity];
+            history.states = Arrays.copyOf(states, capacity);
+            history.keys = new long[capacity];
+            for (int ply = 0; ply < size; ply++) {
+                history.moves[ply] = (short) moves[ply];
+            }
+            history.size = size;
+            return history;
+        }
+
+        private static int[] readInts(JsonReader in) throws IOException {
+            int[] values = new int[16];
+            int count = 0;
+            in.beginArray();
+            while (in.hasNext()) {
+                if (count == values.length) {
+                    values = Arrays.copyOf(values, count * 2);
+                }
+                values[count++] = in.nextInt();
+            }
+            in.endArray();
+            return Arrays.copyOf(values, count);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * Decides the order a {@link Search} tries moves in. Alpha-beta cuts off a
+ * branch as soon as one move is good enough, so the sooner the best move is
+ * tried, the less of the tree is searched.
+ * <p>
+ * Moves are tried in this order:
+ * <ol>
+ *     <li>the move the transposition table remembers as best</li>
+ *     <li>captures and promotions, most valuable victim first and, among
+ *     captures of the same piece, least valuable attacker first (MVV-LVA)</li>
+ *     <li>the two "killer" moves: quiet moves that caused a cutoff at the same
+ *     ply in a sibling position, and so are likely to refute this one too</li>
+ *     <li>the other quiet moves, by how often each piece-and-square caused a
+ *     cutoff anywhere in the search so far (the history heuristic)</li>
+ * </ol>
+ * Moves are not fully sorted up front: most nodes cut off after the first
+ * move or two, so {@link #next} picks the best remaining move each time.
+ * <p>
+ * Killers and history are learned while searching, so each search thread
+ * keeps its own MoveOrdering.
+ */
+final class MoveOrdering {
+
+    private static final int HASH_MOVE = 1 << 30;
+    private static final int CAPTURE = 1 << 28;
+    private static final int KILLER = 1 << 26;
+    // history scores are halved when one reaches this, so they stay below KILLER
+    private static final int HISTORY_LIMIT = 1 << 20;
+    // how much an attacker takes off a capture's score, indexed by PieceType
+    // ordinal: KING, QUEEN, BISHOP, KNIGHT, ROOK, PAWN. The king counts as the
+    // most valuable attacker, since it can only take undefended pieces anyway
+    private static final int[] ATTACKER = {6, 5, 3, 2, 4, 1};
+
+    private final int[][] scores;
+    private final int[][] killers;
+    // by moving piece (BitBoard index) and end square
+    private final int[][] history = new int[12][BitBoard.SQUARES];
+
+    /**
+     * @param maxPly how many plies deep the search can go
+     */
+    MoveOrdering(int maxPly) {
+        scores = new int[maxPly][MoveGenerator.MAX_MOVES];
+        killers = new int[maxPly][2];
+    }
+
+    /**
+     * Prepares for a new search: killers belong to the old positions and are
+     * dropped, while history is kept at half weight
+     */
+    void newSearch() {
+        for (int[] pair : killers) {
+            Arrays.fill(pair, 0);
+        }
+        ageHistory();
+    }
+
+    /**
+     * Scores every move at a ply, ready for {@link #next}
+     *
+     * @param hashMove the transposition table's move for this position, or 0
+     */
+    void score(ChessBoard board, int[] moves, int count, int hashMove, int ply) {
+        int[] plyScores = scores[ply];
+        int[] plyKillers = killers[ply];
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            int capture = captureScore(board, move);
+            if (move == hashMove) {
+                plyScores[i] = HASH_MOVE;
+            } else if (capture != 0) {
+                plyScores[i] = capture;
+            } else if (move == plyKillers[0]) {
+                plyScores[i] = KILLER + 1;
+            } else if (move == plyKillers[1]) {
+                plyScores[i] = KILLER;
+            } else {
+                plyScores[i] = history[pieceIndex(board, PackedMove.from(move))][PackedMove.to(move)];
+            }
+        }
+    }
+
+    /**
+     * Keeps only the captures and promotions of a move list, scored by MVV-LVA
+     * and ready for {@link #next}. This is the move list of a quiescence search.
+     *
+     * @return how many moves were kept, at the front of the list
+     */
+    int scoreCaptures(ChessBoard board, int[] moves, int count, int ply) {
+        int[] plyScores = scores[ply];
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            int capture = captureScore(board, moves[i]);
+            if (capture != 0) {
+                moves[kept] = moves[i];
+                plyScores[kept] = capture;
+                kept++;
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Moves the best-scored move from index {@code i} onwards to index {@code i}
+     *
+     * @return the move now at index i
+     */
+    int next(int[] moves, int count, int i, int ply) {
+        int[] plyScores = scores[ply];
+        int best = i;
+        for (int j = i + 1; j < count; j++) {
+            if (plyScores[j] > plyScores[best]) {
+                best = j;
+            }
+        }
+        if (best != i) {
+            int move = moves[best];
+            moves[best] = moves[i];
+            moves[i] = move;
+            int score = plyScores[best];
+            plyScores[best] = plyScores[i];
+            plyScores[i] = score;
+        }
+        return moves[i];
+    }
+
+    /**
+     * Learns from a move that caused a beta cutoff. Captures already come
+     * early, so only quiet moves become killers or gain history.
+     *
+     * @param board the board before the move was played
+     * @param depth the remaining depth at the node, since deeper cutoffs save more
+     */
+    void cutoff(ChessBoard board, int move, int depth, int ply) {
+        if (captureScore(board, move) != 0) {
+            return;
+        }
+        int[] plyKillers = killers[ply];
+        if (plyKillers[0] != move) {
+            plyKillers[1] = plyKillers[0];
+            plyKillers[0] = move;
+        }
+        int[] squares = history[pieceIndex(board, PackedMove.from(move))];
+        int to = PackedMove.to(move);
+        squares[to] += depth * depth;
+        if (squares[to] >= HISTORY_LIMIT) {
+            ageHistory();
+        }
+    }
+
+    /**
+     * @return 0 for a quiet move, otherwise a score above every killer and
+     * history score that ranks captures by MVV-LVA and adds the value of any
+     * promotion
+     */
+    private static int captureScore(ChessBoard board, int move) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        ChessPiece.PieceType attacker = board.pieceAt(from).getPieceType();
+        ChessPiece captured = board.pieceAt(to);
+        ChessPiece.PieceType victim = (captured == null) ? null : captured.getPieceType();
+        ChessPiece.PieceType promotion = PackedMove.promotion(move);
+        if (victim == null && attacker == ChessPiece.PieceType.PAWN && ((from ^ to) & 7) != 0) {
+            // a pawn moving diagonally onto an empty square captures en passant
+            victim = ChessPiece.PieceType.PAWN;
+        }
+        if (victim == null && promotion == null) {
+            return 0;
+        }
+        int score = CAPTURE - ATTACKER[attacker.ordinal()];
+        if (victim != null) {
+            score += PieceSquareTables.material(victim) * 8;
+        }
+        if (promotion != null) {
+            score += PieceSquareTables.material(promotion) * 8;
+        }
+        return score;
+    }
+
+    private static int pieceIndex(ChessBoard board, int square) {
+        ChessPiece piece = board.pieceAt(square);
+        return BitBoard.index(piece.getTeamColor(), piece.getPieceType());
+    }
+
+    private void ageHistory() {
+        for (int[] squares : history) {
+            for (int to = 0; to < squares.length; to++) {
+                squares[to] >>= 1;
+            }
+        }
+    }
+}
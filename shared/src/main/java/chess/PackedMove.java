@@ -0,0 +1,70 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * Encodes a chess move in a single int so move lists can live in primitive
+ * buffers instead of collections of {@link ChessMove} objects.
+ * <p>
+ * Layout (low bits first): 6 bits start square, 6 bits end square and 3 bits
+ * promotion piece (0 for none, otherwise the {@link ChessPiece.PieceType}
+ * ordinal plus one). Squares use the {@link BitBoard} numbering.
+ */
+public final class PackedMove {
+
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private PackedMove() {}
+
+    public static int of(int from, int to) {
+        return from | (to << 6);
+    }
+
+    public static int of(int from, int to, ChessPiece.PieceType promotion) {
+        int move = from | (to << 6);
+        if (promotion != null) {
+            move |= (promotion.ordinal() + 1) << 12;
+        }
+        return move;
+    }
+
+    public static int of(ChessMove move) {
+        return of(BitBoard.square(move.getStartPosition()), BitBoard.square(move.getEndPosition()),
+                move.getPromotionPiece());
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    /**
+     * @return the piece a pawn is promoted to, or null if this is not a promotion
+     */
+    public static ChessPiece.PieceType promotion(int move) {
+        int code = (move >>> 12) & 7;
+        return code == 0 ? null : TYPES[code - 1];
+    }
+
+    /**
+     * @return the shared ChessMove instance for a packed move
+     */
+    public static ChessMove toChessMove(int move) {
+        return ChessMove.of(move);
+    }
+
+    /**
+     * Converts the first {@code count} moves of a buffer into ChessMove objects
+     */
+    public static Collection<ChessMove> toChessMoves(int[] moves, int count) {
+        Collection<ChessMove> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(toChessMove(moves[i]));
+        }
+        return result;
+    }
+}
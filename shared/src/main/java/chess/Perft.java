@@ -0,0 +1,64 @@
+package chess;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Counts the leaf nodes of the legal move tree to a fixed depth ("perft").
+ * Published node counts exist for standard positions, so comparing against
+ * them checks the move generator, and timing the count measures how fast
+ * moves are generated, played and taken back.
+ */
+public final class Perft {
+
+    private Perft() {}
+
+    /**
+     * Counts every sequence of {@code depth} legal moves from the game's position.
+     * The game is back in its starting position when this returns.
+     *
+     * @param game  the position to count from
+     * @param depth how many moves deep to count
+     * @return the number of positions reached at that depth
+     */
+    public static long perft(ChessGame game, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        return perft(game, depth, new int[depth][MoveGenerator.MAX_MOVES]);
+    }
+
+    /**
+     * Splits a perft count by first move, which narrows a wrong total down to
+     * the move whose subtree is off.
+     *
+     * @return the node count below each legal first move, in generation order
+     */
+    public static Map<ChessMove, Long> divide(ChessGame game, int depth) {
+        Map<ChessMove, Long> counts = new LinkedHashMap<>();
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = game.generateLegalMoves(moves);
+        for (int i = 0; i < count; i++) {
+            game.doMove(moves[i]);
+            counts.put(PackedMove.toChessMove(moves[i]), perft(game, depth - 1));
+            game.undoMove();
+        }
+        return counts;
+    }
+
+    private static long perft(ChessGame game, int depth, int[][] buffers) {
+        int[] moves = buffers[depth - 1];
+        int count = game.generateLegalMoves(moves);
+        // the last ply only needs counting, not playing
+        if (depth == 1) {
+            return count;
+        }
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            game.doMove(moves[i]);
+            nodes += perft(game, depth - 1, buffers);
+            game.undoMove();
+        }
+        return nodes;
+    }
+}
@@ -0,0 +1,163 @@
+package chess;
+
+/**
+ * Material and piece-square values for the static evaluation, in centipawns.
+ * <p>
+ * Every piece is worth its material value plus a bonus or penalty for the
+ * square it stands on, so knights prefer the center, pawns want to advance
+ * and the king hides behind its pawns. The king's table changes as pieces
+ * come off, so there is one set of values for the middlegame and one for the
+ * endgame, blended by how much material is left (the game "phase").
+ * <p>
+ * A piece's value depends only on its own square, so a {@link BitBoard}
+ * keeps the running total up to date with every piece that is added or
+ * removed, and evaluating a position never has to look at the board. Values
+ * are from white's point of view: black pieces count negative.
+ */
+public final class PieceSquareTables {
+
+    /**
+     * The phase of a position with all of its pieces still on the board
+     */
+    public static final int MAX_PHASE = 24;
+
+    // indexed by PieceType ordinal: KING, QUEEN, BISHOP, KNIGHT, ROOK, PAWN
+    private static final int[] MATERIAL = {0, 900, 330, 320, 500, 100};
+    private static final int[] PHASE = {0, 4, 1, 1, 2, 0};
+
+    // the tables below are laid out as the board is printed, row 8 first, for white
+    private static final int[] KING_MIDDLEGAME = {
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+            20, 20, 0, 0, 0, 0, 20, 20,
+            20, 30, 10, 0, 0, 10, 30, 20,
+    };
+    private static final int[] KING_ENDGAME = {
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10, 0, 0, -10, -20, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -30, 0, 0, 0, 0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50,
+    };
+    private static final int[] QUEEN = {
+            -20, -10, -10, -5, -5, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 5, 5, 5, 0, -10,
+            -5, 0, 5, 5, 5, 5, 0, -5,
+            0, 0, 5, 5, 5, 5, 0, -5,
+            -10, 5, 5, 5, 5, 5, 0, -10,
+            -10, 0, 5, 0, 0, 0, 0, -10,
+            -20, -10, -10, -5, -5, -10, -10, -20,
+    };
+    private static final int[] BISHOP = {
+            -20, -10, -10, -10, -10, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 10, 10, 5, 0, -10,
+            -10, 5, 5, 10, 10, 5, 5, -10,
+            -10, 0, 10, 10, 10, 10, 0, -10,
+            -10, 10, 10, 10, 10, 10, 10, -10,
+            -10, 5, 0, 0, 0, 0, 5, -10,
+            -20, -10, -10, -10, -10, -10, -10, -20,
+    };
+    private static final int[] KNIGHT = {
+            -50, -40, -30, -30, -30, -30, -40, -50,
+            -40, -20, 0, 0, 0, 0, -20, -40,
+            -30, 0, 10, 15, 15, 10, 0, -30,
+            -30, 5, 15, 20, 20, 15, 5, -30,
+            -30, 0, 15, 20, 20, 15, 0, -30,
+            -30, 5, 10, 15, 15, 10, 5, -30,
+            -40, -20, 0, 5, 5, 0, -20, -40,
+            -50, -40, -30, -30, -30, -30, -40, -50,
+    };
+    private static final int[] ROOK = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            5, 10, 10, 10, 10, 10, 10, 5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            0, 0, 0, 5, 5, 0, 0, 0,
+    };
+    private static final int[] PAWN = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            10, 10, 20, 30, 30, 20, 10, 10,
+            5, 5, 10, 25, 25, 10, 5, 5,
+            0, 0, 0, 20, 20, 0, 0, 0,
+            5, -5, -10, 0, 0, -10, -5, 5,
+            5, 10, 10, -20, -20, 10, 10, 5,
+            0, 0, 0, 0, 0, 0, 0, 0,
+    };
+
+    // material plus square bonus for each BitBoard piece index and square
+    private static final int[][] MIDDLEGAME = new int[12][BitBoard.SQUARES];
+    private static final int[][] ENDGAME = new int[12][BitBoard.SQUARES];
+
+    static {
+        int[][] middlegame = {KING_MIDDLEGAME, QUEEN, BISHOP, KNIGHT, ROOK, PAWN};
+        int[][] endgame = {KING_ENDGAME, QUEEN, BISHOP, KNIGHT, ROOK, PAWN};
+        for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+            int t = type.ordinal();
+            int white = BitBoard.index(ChessGame.TeamColor.WHITE, type);
+            int black = BitBoard.index(ChessGame.TeamColor.BLACK, type);
+            for (int square = 0; square < BitBoard.SQUARES; square++) {
+                // flipping the row (square ^ 56) turns a square into its place in the
+                // printed table for white, and mirrors it for black
+                MIDDLEGAME[white][square] = MATERIAL[t] + middlegame[t][square ^ 56];
+                ENDGAME[white][square] = MATERIAL[t] + endgame[t][square ^ 56];
+                MIDDLEGAME[black][square] = -(MATERIAL[t] + middlegame[t][square]);
+                ENDGAME[black][square] = -(MATERIAL[t] + endgame[t][square]);
+            }
+        }
+    }
+
+    private PieceSquareTables() {}
+
+    /**
+     * @return the middlegame value of a piece on a square, negative for black
+     */
+    public static int middlegame(ChessPiece piece, int square) {
+        return MIDDLEGAME[BitBoard.index(piece.getTeamColor(), piece.getPieceType())][square];
+    }
+
+    /**
+     * @return the endgame value of a piece on a square, negative for black
+     */
+    public static int endgame(ChessPiece piece, int square) {
+        return ENDGAME[BitBoard.index(piece.getTeamColor(), piece.getPieceType())][square];
+    }
+
+    /**
+     * @return how much a piece adds to the game phase: 4 for a queen, 2 for a
+     * rook, 1 for a bishop or knight and nothing for pawns and kings
+     */
+    public static int phase(ChessPiece.PieceType type) {
+        return PHASE[type.ordinal()];
+    }
+
+    /**
+     * @return the material value of a piece type, 0 for the king
+     */
+    public static int material(ChessPiece.PieceType type) {
+        return MATERIAL[type.ordinal()];
+    }
+
+    /**
+     * Blends middlegame and endgame totals by the phase
+     *
+     * @param phase how much material is left, capped at {@link #MAX_PHASE}
+     * @return the blended score
+     */
+    public static int blend(int middlegame, int endgame, int phase) {
+        int p = Math.min(phase, MAX_PHASE);
+        return (middlegame * p + endgame * (MAX_PHASE - p)) / MAX_PHASE;
+    }
+}
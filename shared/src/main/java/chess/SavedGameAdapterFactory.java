@@ -0,0 +1,39 @@
+package chess;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes a {@link ChessGame} field by field as Gson always has, then
+ * lets the game finish loading (see {@link ChessGame#afterLoad()}) before the
+ * caller gets it. Attached to ChessGame itself, so every {@code new Gson()}
+ * in the client and server picks it up.
+ */
+final class SavedGameAdapterFactory implements TypeAdapterFactory {
+
+    @Override
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        TypeAdapter<T> fields = gson.getDelegateAdapter(this, type);
+        return new TypeAdapter<>() {
+            @Override
+            public void write(JsonWriter out, T value) throws IOException {
+                fields.write(out, value);
+            }
+
+            @Override
+            public T read(JsonReader in) throws IOException {
+                T value = fields.read(in);
+                if (value instanceof ChessGame game) {
+                    game.afterLoad();
+                }
+                return value;
+            }
+        };
+    }
+}
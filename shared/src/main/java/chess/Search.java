@@ -0,0 +1,401 @@
+package chess;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Picks a move for the side to move with an alpha-beta search.
+ * <p>
+ * The search deepens one ply at a time until its time budget runs out,
+ * trying the best move of the last iteration first so each iteration cuts
+ * off more of the tree. The deadline is hard: the clock is read every few
+ * thousand nodes, and an iteration cut short only counts for the moves it
+ * finished searching, so a move is always ready when time is up. Positions
+ * at the end of the main search are settled by a search of captures alone,
+ * so none is scored in the middle of an exchange; a side in check there
+ * searches every evasion instead, so mates at the horizon are seen.
+ * <p>
+ * Results are kept in a {@link TranspositionTable}. With more than one
+ * thread the search runs "Lazy SMP": every thread searches the same root
+ * position on its own copy of the game, and they only cooperate through the
+ * shared table, where each finds the bounds and best moves the others left.
+ * Half the helpers start one ply deeper so the threads spread over the tree
+ * instead of following each other. The move played is the main thread's.
+ * The helper threads are started with the Search and wait in a pool between
+ * calls; {@link #close()} stops them.
+ * <p>
+ * A Search reuses its buffers between calls and is not thread-safe; give
+ * each thread that searches its own.
+ */
+public final class Search implements AutoCloseable {
+
+    public static final int MAX_DEPTH = 64;
+    // a mate found n plies from the root scores MATE - n
+    static final int MATE = 30000;
+    private static final int INFINITY = 32000;
+    // plies of main search and quiescence search together
+    private static final int MAX_PLY = 128;
+    // nodes between reads of the clock, a power of two
+    private static final int CLOCK_INTERVAL = 2048;
+    private static final int DEFAULT_TABLE_MEGABYTES = 16;
+
+    private final TranspositionTable table;
+    private final Worker[] workers;
+    // threads for every worker but the first, which runs on the caller's thread
+    private final ExecutorService helpers;
+    private long deadline;
+    private volatile boolean stopped;
+
+    /**
+     * Creates a single-threaded search with a table of its own
+     */
+    public Search() {
+        this(1, new TranspositionTable(DEFAULT_TABLE_MEGABYTES));
+    }
+
+    /**
+     * @param threads how many threads search each position, at least 1
+     * @param table   the table to keep results in, which may be shared with other searches
+     */
+    public Search(int threads, TranspositionTable table) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("A search needs at least one thread: " + threads);
+        }
+        this.table = table;
+        this.workers = new Worker[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker();
+        }
+        if (threads > 1) {
+            AtomicInteger started = new AtomicInteger();
+            this.helpers = Executors.newFixedThreadPool(threads - 1, task -> {
+                Thread thread = new Thread(task, "search-helper-" + started.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.helpers = null;
+        }
+    }
+
+    /**
+     * Searches for the best move within a time budget
+     *
+     * @param game   the position to move in, which is left unchanged
+     * @param millis how long the search may take
+     * @return the best move found, or null if the side to move has no legal moves
+     */
+    public ChessMove bestMove(ChessGame game, long millis) {
+        return bestMove(game, millis, MAX_DEPTH);
+    }
+
+    /**
+     * Searches for the best move within a time budget and a depth limit
+     *
+     * @param game     the position to move in, which is left unchanged
+     * @param millis   how long the search may take
+     * @param maxDepth the deepest iteration to search, in plies
+     * @return the best move found, or null if the side to move has no legal moves
+     */
+    public ChessMove bestMove(ChessGame game, long millis, int maxDepth) {
+        deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        stopped = false;
+        table.newSearch();
+        int depthLimit = Math.min(maxDepth, MAX_DEPTH);
+        for (Worker worker : workers) {
+            worker.reset(game);
+        }
+        if (workers[0].rootCount == 0) {
+            return null;
+        }
+
+        CountDownLatch helpersDone = new CountDownLatch(workers.length - 1);
+        for (int i = 1; i < workers.length; i++) {
+            Worker helper = workers[i];
+            int firstDepth = 1 + ((i - 1) & 1);
+            helpers.execute(() -> {
+                try {
+                    helper.iterate(firstDepth, depthLimit);
+                } finally {
+                    helpersDone.countDown();
+                }
+            });
+        }
+        int best = workers[0].iterate(1, depthLimit);
+        // the main thread decides when the search is over, whether or not the clock ran out
+        stopped = true;
+        awaitHelpers(helpersDone);
+        return PackedMove.toChessMove(best);
+    }
+
+    /**
+     * Stops the helper threads. A closed Search can still search, but only
+     * if it was created with a single thread.
+     */
+    @Override
+    public void close() {
+        if (helpers != null) {
+            helpers.shutdownNow();
+        }
+    }
+
+    /**
+     * @return how many positions the last search visited, over all its threads
+     */
+    public long getNodes() {
+        long nodes = 0;
+        for (Worker worker : workers) {
+            nodes += worker.nodes;
+        }
+        return nodes;
+    }
+
+    /**
+     * @return the deepest iteration the main thread of the last search finished
+     */
+    public int getDepth() {
+        return workers[0].completedDepth;
+    }
+
+    /**
+     * One search thread's copy of the game and its buffers
+     */
+    private final class Worker {
+        private final int[][] buffers = new int[MAX_PLY][MoveGenerator.MAX_MOVES];
+        private final int[] rootMoves = new int[MoveGenerator.MAX_MOVES];
+        private final MoveOrdering ordering = new MoveOrdering(MAX_PLY);
+        private int rootCount;
+        private ChessGame position;
+        private long nodes;
+        private int completedDepth;
+
+        void reset(ChessGame game) {
+            position = game.replay(game.getMoveCount());
+            rootCount = position.generateLegalMoves(rootMoves);
+            nodes = 0;
+            completedDepth = 0;
+            ordering.newSearch();
+            // captures first for the first iteration; after that the last best move leads
+            ordering.score(position.getBoard(), rootMoves, rootCount, 0, 0);
+            for (int i = 0; i < rootCount; i++) {
+                ordering.next(rootMoves, rootCount, i, 0);
+            }
+        }
+
+        /**
+         * Deepens the search one iteration at a time until the deadline, the depth
+         * limit, a forced mate or another thread ends it
+         *
+         * @return the best move of the deepest iteration searched
+         */
+        int iterate(int firstDepth, int depthLimit) {
+            int best = rootMoves[0];
+            for (int depth = firstDepth; depth <= depthLimit; depth++) {
+                moveToFront(rootMoves, rootCount, best);
+                int alpha = -INFINITY;
+                int iterationBest = best;
+                for (int i = 0; i < rootCount; i++) {
+                    position.doMove(rootMoves[i]);
+                    int score = -alphaBeta(depth - 1, 1, -INFINITY, -alpha);
+                    position.undoMove();
+                    if (stopped) {
+                        break;
+                    }
+                    if (score > alpha) {
+                        alpha = score;
+                        iterationBest = rootMoves[i];
+                    }
+                }
+                // the previous best is searched first, so anything that beat it before
+                // the clock ran out is still an improvement
+                best = iterationBest;
+                if (stopped) {
+                    break;
+                }
+                completedDepth = depth;
+                table.store(position.positionKey(), best, alpha, depth, TranspositionTable.EXACT);
+                if (Math.abs(alpha) >= MATE - MAX_PLY) {
+                    break;
+                }
+            }
+            return best;
+        }
+
+        private int alphaBeta(int depth, int ply, int alpha, int beta) {
+            if (depth <= 0 || ply >= MAX_PLY - 1) {
+                return quiescence(ply, alpha, beta);
+            }
+            if (outOfTime()) {
+                return 0;
+            }
+            if (position.getHalfmoveClock() >= 100 || position.isRepetition()) {
+                return 0;
+            }
+
+            long key = position.positionKey();
+            long entry = table.probe(key);
+            int hashMove = 0;
+            if (entry != 0) {
+                hashMove = TranspositionTable.move(entry);
+                if (TranspositionTable.depth(entry) >= depth) {
+                    int score = fromTable(TranspositionTable.score(entry), ply);
+                    int bound = TranspositionTable.bound(entry);
+                    if (bound == TranspositionTable.EXACT
+                            || (bound == TranspositionTable.LOWER && score >= beta)
+                            || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                        return score;
+                    }
+                }
+            }
+
+            int[] moves = buffers[ply];
+            int count = position.generateLegalMoves(moves);
+            if (count == 0) {
+                return position.isInCheck(position.getTeamTurn()) ? -MATE + ply : 0;
+            }
+            // a stored move is only tried first if it is in the legal move list,
+            // which also guards against two positions that share a key
+            ChessBoard board = position.getBoard();
+            ordering.score(board, moves, count, hashMove, ply);
+            int originalAlpha = alpha;
+            int bestMove = 0;
+            for (int i = 0; i < count; i++) {
+                int move = ordering.next(moves, count, i, ply);
+                position.doMove(move);
+                int score = -alphaBeta(depth - 1, ply + 1, -beta, -alpha);
+                position.undoMove();
+                if (stopped) {
+                    return 0;
+                }
+                if (score >= beta) {
+                    ordering.cutoff(board, move, depth, ply);
+                    table.store(key, move, toTable(beta, ply), depth, TranspositionTable.LOWER);
+                    return beta;
+                }
+                if (score > alpha) {
+                    alpha = score;
+                    bestMove = move;
+                }
+            }
+            int bound = (alpha > originalAlpha) ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+            table.store(key, bestMove, toTable(alpha, ply), depth, bound);
+            return alpha;
+        }
+
+        private int quiescence(int ply, int alpha, int beta) {
+            if (outOfTime()) {
+                return 0;
+            }
+            if (ply >= MAX_PLY - 1) {
+                return position.evaluate();
+            }
+            int[] moves = buffers[ply];
+            int count;
+            if (position.isInCheck(position.getTeamTurn())) {
+                // in check there is no quiet move to fall back on, so every evasion
+                // is searched and having none is mate
+                count = position.generateLegalMoves(moves);
+                if (count == 0) {
+                    return -MATE + ply;
+                }
+                ordering.score(position.getBoard(), moves, count, 0, ply);
+            } else {
+                // the side to move can usually do at least as well as the board stands
+                // by making a quiet move, so the evaluation is a lower bound
+                int standPat = position.evaluate();
+                if (standPat >= beta) {
+                    return standPat;
+                }
+                if (standPat > alpha) {
+                    alpha = standPat;
+                }
+                count = ordering.scoreCaptures(position.getBoard(), moves, position.generateLegalMoves(moves), ply);
+            }
+            for (int i = 0; i < count; i++) {
+                int move = ordering.next(moves, count, i, ply);
+                position.doMove(move);
+                int score = -quiescence(ply + 1, -beta, -alpha);
+                position.undoMove();
+                if (stopped) {
+                    return 0;
+                }
+                if (score >= beta) {
+                    return beta;
+                }
+                if (score > alpha) {
+                    alpha = score;
+                }
+            }
+            return alpha;
+        }
+
+        /**
+         * Counts a node and reads the clock every {@link #CLOCK_INTERVAL} nodes
+         *
+         * @return True once the deadline has passed or the search was stopped
+         */
+        private boolean outOfTime() {
+            if ((++nodes & (CLOCK_INTERVAL - 1)) == 0 && System.nanoTime() - deadline >= 0) {
+                stopped = true;
+            }
+            return stopped;
+        }
+    }
+
+    /**
+     * Waits for every helper to finish before their workers are read or reset.
+     * The helpers were told to stop and return within a few thousand nodes, so
+     * an interrupt is remembered for the caller rather than cutting this short.
+     */
+    private static void awaitHelpers(CountDownLatch helpersDone) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                helpersDone.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Mate scores count plies from the root, but a stored position can be
+     * reached at any ply, so they are stored counting from the position itself
+     */
+    private static int toTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) {
+            return score + ply;
+        }
+        if (score <= -MATE + MAX_PLY) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) {
+            return score - ply;
+        }
+        if (score <= -MATE + MAX_PLY) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    private static void moveToFront(int[] moves, int count, int move) {
+        for (int i = 0; i < count; i++) {
+            if (moves[i] == move) {
+                System.arraycopy(moves, 0, moves, 1, i);
+                moves[0] = move;
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * Remembers search results by position key, so a position reached again by
+ * another move order, in a later iteration, by another search thread or in
+ * another game is not searched from scratch.
+ * <p>
+ * Entries live in one {@code long[]}, two longs each: the packed result and
+ * the position key XORed with that result. Threads read and write entries
+ * without locks, so another thread can replace an entry between the two
+ * reads of a probe; the key check then fails because the halves no longer
+ * belong together, and the probe counts as a miss instead of returning
+ * another position's result.
+ * <p>
+ * Entries are grouped in buckets of four, 64 bytes to a bucket, and a key
+ * may sit in any entry of its bucket. When a bucket is full the entry that
+ * is cheapest to lose is replaced: the one searched least deeply, with
+ * entries left over from earlier searches counting as shallower the older
+ * they are. The table never grows, so however many games share it, it uses
+ * the memory it was given and no more.
+ * <p>
+ * Result layout (low bits first): 16 bits {@link PackedMove}, 16 bits score,
+ * 8 bits depth, 2 bits bound and 6 bits search generation. A result is
+ * never 0, since every stored bound is non-zero, so 0 stands for a miss.
+ */
+public final class TranspositionTable {
+
+    public static final int EXACT = 1;
+    // the score is at least the stored one: the search failed high
+    public static final int LOWER = 2;
+    // the score is at most the stored one: no move raised alpha
+    public static final int UPPER = 3;
+
+    private static final int ENTRY_BYTES = 16;
+    private static final int BUCKET_ENTRIES = 4;
+    private static final int GENERATIONS = 64;
+    // plies of depth one generation of age is worth when picking an entry to replace
+    private static final int AGE_WEIGHT = 4;
+
+    private final long[] entries;
+    private final int bucketMask;
+    // plain int: searches that start at the same time may both bump it, which only ages entries faster
+    private int generation;
+
+    /**
+     * @param megabytes the most memory the table may use; it is sized to the
+     *                  largest power of two buckets that fits
+     */
+    public TranspositionTable(int megabytes) {
+        long limit = Math.max(1, (long) megabytes * 1024 * 1024 / (ENTRY_BYTES * BUCKET_ENTRIES));
+        int buckets = Integer.highestOneBit((int) Math.min(limit, 1 << 26));
+        entries = new long[buckets * BUCKET_ENTRIES * 2];
+        bucketMask = buckets - 1;
+    }
+
+    /**
+     * Marks the start of a new search, so the entries of earlier searches age
+     * and give way to the new search's results. The generation only has 6
+     * bits, so when it wraps round the table is emptied; otherwise entries
+     * left from 64 searches ago would pass for the current search's.
+     */
+    public void newSearch() {
+        generation = (generation + 1) & (GENERATIONS - 1);
+        if (generation == 0) {
+            clear();
+        }
+    }
+
+    /**
+     * Looks up the stored result for a position
+     *
+     * @param key the position key
+     * @return the packed result, or 0 if nothing is stored for that key
+     */
+    public long probe(long key) {
+        int bucket = bucket(key);
+        for (int i = bucket; i < bucket + BUCKET_ENTRIES * 2; i += 2) {
+            long check = entries[i];
+            long data = entries[i + 1];
+            if ((check ^ data) == key && data != 0) {
+                return data;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Stores a search result. A result already stored for the same position is
+     * replaced; otherwise it takes the place of the entry in its bucket that
+     * is least worth keeping.
+     *
+     * @param key   the position key
+     * @param move  the best move found, or 0 for none
+     * @param score the score, from the point of view of the side to move
+     * @param depth how many plies deep the position was searched
+     * @param bound {@link #EXACT}, {@link #LOWER} or {@link #UPPER}
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        int current = generation;
+        int bucket = bucket(key);
+        int victim = bucket;
+        int victimWorth = Integer.MAX_VALUE;
+        for (int i = bucket; i < bucket + BUCKET_ENTRIES * 2; i += 2) {
+            long data = entries[i + 1];
+            if (data == 0 || (entries[i] ^ data) == key) {
+                // an empty entry or this position's own: nothing better to replace
+                victim = i;
+                if (data != 0 && move == 0) {
+                    // keep the best move of an earlier search when this one found none
+                    move = move(data);
+                }
+                break;
+            }
+            int age = (current - generation(data)) & (GENERATIONS - 1);
+            int worth = depth(data) - AGE_WEIGHT * age;
+            if (worth < victimWorth) {
+                victimWorth = worth;
+                victim = i;
+            }
+        }
+        long data = (move & 0xFFFFL)
+                | ((score & 0xFFFFL) << 16)
+                | ((long) Math.min(depth, 255) << 32)
+                | ((long) bound << 40)
+                | ((long) current << 42);
+        entries[victim] = key ^ data;
+        entries[victim + 1] = data;
+    }
+
+    /**
+     * Empties the table, for instance before a new game
+     */
+    public void clear() {
+        Arrays.fill(entries, 0);
+    }
+
+    /**
+     * @return how many entries the table holds
+     */
+    public int capacity() {
+        return (bucketMask + 1) * BUCKET_ENTRIES;
+    }
+
+    /**
+     * Estimates how full the table is from its first thousand entries, the
+     * way engines report "hashfull"
+     *
+     * @return per mille of sampled entries written during the current search
+     */
+    public int usage() {
+        int sample = Math.min(1000, capacity());
+        int used = 0;
+        for (int i = 0; i < sample; i++) {
+            long data = entries[i * 2 + 1];
+            if (data != 0 && generation(data) == generation) {
+                used++;
+            }
+        }
+        return used * 1000 / sample;
+    }
+
+    public static int move(long data) {
+        return (int) (data & 0xFFFF);
+    }
+
+    public static int score(long data) {
+        return (short) (data >>> 16);
+    }
+
+    public static int depth(long data) {
+        return (int) ((data >>> 32) & 0xFF);
+    }
+
+    public static int bound(long data) {
+        return (int) ((data >>> 40) & 3);
+    }
+
+    private static int generation(long data) {
+        return (int) ((data >>> 42) & (GENERATIONS - 1));
+    }
+
+    private int bucket(long key) {
+        // the low bits of a Zobrist key are as random as any, so they pick the bucket
+        return ((int) key & bucketMask) * BUCKET_ENTRIES * 2;
+    }
+}
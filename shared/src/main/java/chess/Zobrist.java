@@ -0,0 +1,64 @@
+package chess;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random 64-bit keys used to hash positions. A position's key is the XOR of
+ * the key for every piece on its square, plus {@link #SIDE} when black is to
+ * move and the keys for the castling rights and en passant file. Moving a
+ * piece only takes two XORs to update instead of rehashing the whole board.
+ * <p>
+ * The keys come from a fixed seed so the same position always hashes to the
+ * same key, including across server restarts.
+ */
+public final class Zobrist {
+
+    /**
+     * XORed into a position's key when it is black's turn
+     */
+    public static final long SIDE;
+
+    private static final long[][] PIECES = new long[12][BitBoard.SQUARES];
+    private static final long[] CASTLING = new long[CastlingRights.ALL + 1];
+    private static final long[] EN_PASSANT = new long[8];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x2400C4E55L);
+        for (long[] keys : PIECES) {
+            for (int square = 0; square < keys.length; square++) {
+                keys[square] = random.nextLong();
+            }
+        }
+        SIDE = random.nextLong();
+        // every combination of rights gets its own key, with none of them hashing to 0
+        for (int rights = 1; rights < CASTLING.length; rights++) {
+            CASTLING[rights] = random.nextLong();
+        }
+        for (int file = 0; file < EN_PASSANT.length; file++) {
+            EN_PASSANT[file] = random.nextLong();
+        }
+    }
+
+    private Zobrist() {}
+
+    /**
+     * @return the key for a piece standing on a square
+     */
+    public static long piece(ChessPiece piece, int square) {
+        return PIECES[BitBoard.index(piece.getTeamColor(), piece.getPieceType())][square];
+    }
+
+    /**
+     * @return the key for a set of {@link CastlingRights}, which is 0 when there are none
+     */
+    public static long castling(int rights) {
+        return CASTLING[rights];
+    }
+
+    /**
+     * @return the key for an en passant file (0-7), or 0 for -1 meaning none
+     */
+    public static long enPassant(int file) {
+        return (file < 0) ? 0 : EN_PASSANT[file];
+    }
+}
@@ -0,0 +1,154 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the precomputed attack tables with attacks worked out square by
+ * square, the way the board was scanned before there were tables
+ */
+public class AttacksTest {
+
+    private static final int[][] KNIGHT = {{1, -2}, {2, -1}, {2, 1}, {1, 2}, {-1, 2}, {-2, 1}, {-2, -1}, {-1, -2}};
+    private static final int[][] KING = {{1, -1}, {1, 0}, {1, 1}, {0, 1}, {-1, 1}, {-1, 0}, {-1, -1}, {0, -1}};
+    private static final int[][] BISHOP = {{1, -1}, {1, 1}, {-1, 1}, {-1, -1}};
+    private static final int[][] ROOK = {{0, -1}, {1, 0}, {0, 1}, {-1, 0}};
+    private static final int[][] WHITE_PAWN = {{1, -1}, {1, 1}};
+    private static final int[][] BLACK_PAWN = {{-1, -1}, {-1, 1}};
+    private static final int BOARDS = 200;
+
+    @Test
+    public void leaperTablesMatchReference() {
+        for (int square = 0; square < BitBoard.SQUARES; square++) {
+            assertEquals(walk(square, KNIGHT, 0, false), Attacks.knight(square), "knight on " + square);
+            assertEquals(walk(square, KING, 0, false), Attacks.king(square), "king on " + square);
+            assertEquals(walk(square, WHITE_PAWN, 0, false), Attacks.pawn(ChessGame.TeamColor.WHITE, square));
+            assertEquals(walk(square, BLACK_PAWN, 0, false), Attacks.pawn(ChessGame.TeamColor.BLACK, square));
+        }
+    }
+
+    @Test
+    public void leaperAttackersMatchReference() {
+        Random random = new Random(13);
+        for (int i = 0; i < BOARDS; i++) {
+            BitBoard bits = randomBoard(random).getBitBoard();
+            for (ChessGame.TeamColor attacker : ChessGame.TeamColor.values()) {
+                long leapers = bits.pieces(attacker, ChessPiece.PieceType.KNIGHT)
+                        | bits.pieces(attacker, ChessPiece.PieceType.KING)
+                        | bits.pieces(attacker, ChessPiece.PieceType.PAWN);
+                for (int square = 0; square < BitBoard.SQUARES; square++) {
+                    long expected = referenceAttackers(bits, square, attacker, bits.occupied()) & leapers;
+                    assertEquals(expected, Attacks.attackers(bits, square, attacker, bits.occupied()) & leapers);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void sliderAttacksMatchRayWalk() {
+        Random random = new Random(14);
+        for (int square = 0; square < BitBoard.SQUARES; square++) {
+            for (int i = 0; i < 500; i++) {
+                // sparse, medium and dense blockers, and now and then an empty or full board
+                long occupied = switch (i % 5) {
+                    case 0 -> random.nextLong() & random.nextLong() & random.nextLong();
+                    case 1 -> random.nextLong() & random.nextLong();
+                    case 2 -> random.nextLong();
+                    case 3 -> random.nextLong() | random.nextLong();
+                    default -> (i % 10 == 4) ? 0 : -1;
+                };
+                long rook = walk(square, ROOK, occupied, true);
+                long bishop = walk(square, BISHOP, occupied, true);
+                assertEquals(rook, Attacks.rook(square, occupied), "rook on " + square);
+                assertEquals(bishop, Attacks.bishop(square, occupied), "bishop on " + square);
+                assertEquals(rook | bishop, Attacks.queen(square, occupied), "queen on " + square);
+            }
+        }
+    }
+
+    @Test
+    public void attackersMatchReference() {
+        Random random = new Random(15);
+        for (int i = 0; i < BOARDS; i++) {
+            BitBoard bits = randomBoard(random).getBitBoard();
+            // as if some pieces had already moved away, which opens lines for the sliders
+            long[] occupancies = {bits.occupied(), bits.occupied() & random.nextLong()};
+            for (long occupied : occupancies) {
+                for (ChessGame.TeamColor attacker : ChessGame.TeamColor.values()) {
+                    for (int square = 0; square < BitBoard.SQUARES; square++) {
+                        assertEquals(referenceAttackers(bits, square, attacker, occupied),
+                                Attacks.attackers(bits, square, attacker, occupied));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return every piece of the attacker's that reaches the square, found by
+     * walking out from each piece in turn
+     */
+    private static long referenceAttackers(BitBoard bits, int square, ChessGame.TeamColor attacker, long occupied) {
+        long target = BitBoard.bit(square);
+        long found = 0;
+        for (int from = 0; from < BitBoard.SQUARES; from++) {
+            if ((occupied & BitBoard.bit(from)) == 0 || bits.colorAt(from) != attacker) {
+                continue;
+            }
+            long reach = switch (bits.typeAt(from)) {
+                case KING -> walk(from, KING, occupied, false);
+                case KNIGHT -> walk(from, KNIGHT, occupied, false);
+                case PAWN -> walk(from, (attacker == ChessGame.TeamColor.WHITE) ? WHITE_PAWN : BLACK_PAWN,
+                        occupied, false);
+                case BISHOP -> walk(from, BISHOP, occupied, true);
+                case ROOK -> walk(from, ROOK, occupied, true);
+                case QUEEN -> walk(from, KING, occupied, true);
+            };
+            if ((reach & target) != 0) {
+                found |= BitBoard.bit(from);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Walks from a square in each direction, one step only or, when sliding,
+     * until the edge of the board or the first occupied square
+     */
+    private static long walk(int square, int[][] directions, long occupied, boolean slide) {
+        long reach = 0;
+        for (int[] direction : directions) {
+            int row = BitBoard.row(square) - 1 + direction[0];
+            int col = BitBoard.column(square) - 1 + direction[1];
+            while (row >= 0 && row < 8 && col >= 0 && col < 8) {
+                long bit = BitBoard.bit(row * 8 + col);
+                reach |= bit;
+                if (!slide || (occupied & bit) != 0) {
+                    break;
+                }
+                row += direction[0];
+                col += direction[1];
+            }
+        }
+        return reach;
+    }
+
+    /**
+     * @return a board with a random piece on roughly a quarter of its squares
+     */
+    private static ChessBoard randomBoard(Random random) {
+        ChessGame.TeamColor[] colors = ChessGame.TeamColor.values();
+        ChessPiece.PieceType[] types = ChessPiece.PieceType.values();
+        ChessBoard board = new ChessBoard();
+        for (int square = 0; square < BitBoard.SQUARES; square++) {
+            if (random.nextInt(4) == 0) {
+                board.addPiece(ChessPosition.of(square),
+                        ChessPiece.of(colors[random.nextInt(2)], types[random.nextInt(types.length)]));
+            }
+        }
+        return board;
+    }
+}
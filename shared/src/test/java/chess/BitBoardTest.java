@@ -0,0 +1,88 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BitBoardTest {
+
+    @Test
+    public void castlingMatchesRebuild() {
+        ChessGame game = Fen.parse(PerftPositions.KIWIPETE.fen);
+        // e1g1, then e8c8
+        checkMoveAndUndo(game, PackedMove.of(4, 6));
+        game.doMove(PackedMove.of(4, 6));
+        assertEquals(ChessPiece.PieceType.ROOK, game.getBoard().getBitBoard().typeAt(5));
+        checkMoveAndUndo(game, PackedMove.of(60, 58));
+    }
+
+    @Test
+    public void enPassantMatchesRebuild() {
+        // e5xd6 en passant takes the pawn on d5
+        ChessGame game = Fen.parse("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1");
+        checkMoveAndUndo(game, PackedMove.of(36, 43));
+    }
+
+    @Test
+    public void promotionMatchesRebuild() {
+        // b7-b8 and b7xa8, each promoting to a queen and to a knight
+        ChessGame game = Fen.parse("r3k3/1P6/8/8/8/8/8/4K3 w - - 0 1");
+        for (ChessPiece.PieceType type : new ChessPiece.PieceType[]{ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.KNIGHT}) {
+            checkMoveAndUndo(game, PackedMove.of(49, 57, type));
+            checkMoveAndUndo(game, PackedMove.of(49, 56, type));
+        }
+    }
+
+    @Test
+    public void randomGamesMatchRebuild() {
+        Random random = new Random(7);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        for (PerftPositions position : PerftPositions.values()) {
+            ChessGame game = Fen.parse(position.fen);
+            int played = 0;
+            for (int ply = 0; ply < 40; ply++) {
+                int count = game.generateLegalMoves(moves);
+                if (count == 0) {
+                    break;
+                }
+                game.doMove(moves[random.nextInt(count)]);
+                played++;
+                assertMatchesRebuild(game);
+            }
+            for (int ply = 0; ply < played; ply++) {
+                game.undoMove();
+                assertMatchesRebuild(game);
+            }
+            assertEquals(Fen.parse(position.fen), game);
+        }
+    }
+
+    private static void checkMoveAndUndo(ChessGame game, int move) {
+        assertMatchesRebuild(game);
+        game.doMove(move);
+        assertMatchesRebuild(game);
+        game.undoMove();
+        assertMatchesRebuild(game);
+    }
+
+    /**
+     * Checks that the masks kept up to date move by move are the ones built
+     * from scratch out of the board's grid
+     */
+    private static void assertMatchesRebuild(ChessGame game) {
+        BitBoard bits = game.getBoard().getBitBoard();
+        BitBoard rebuilt = BitBoard.of(game.getBoard().getBoard());
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+                assertEquals(rebuilt.pieces(color, type), bits.pieces(color, type), color + " " + type);
+            }
+            assertEquals(rebuilt.occupancy(color), bits.occupancy(color), color + " occupancy");
+            assertEquals(rebuilt.kingSquare(color), bits.kingSquare(color), color + " king");
+        }
+        assertEquals(rebuilt.occupied(), bits.occupied());
+        assertEquals(rebuilt.key(), bits.key());
+        assertEquals(rebuilt.evaluation(), bits.evaluation());
+    }
+}
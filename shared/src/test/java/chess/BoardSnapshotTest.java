@@ -0,0 +1,86 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static chess.TestMoves.move;
+
+public class BoardSnapshotTest {
+
+    @Test
+    public void snapshotsMatchReplayedBoards() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(move(2, 5, 4, 5));
+        game.makeMove(move(7, 4, 5, 4));
+        assertEquals(BoardSnapshot.of(game.getBoard()), game.getSnapshot(2));
+
+        // once built, the snapshots follow moves and takebacks
+        game.makeMove(move(4, 5, 5, 4));
+        game.makeMove(move(8, 4, 5, 4));
+        for (int ply = 0; ply <= game.getMoveCount(); ply++) {
+            assertEquals(game.replay(ply).getBoard(), game.getSnapshot(ply).toBoard(), "after " + ply + " moves");
+        }
+        game.takeBack();
+        assertEquals(game.getBoard(), game.getSnapshot(3).toBoard());
+        assertThrows(IndexOutOfBoundsException.class, () -> game.getSnapshot(4));
+    }
+
+    @Test
+    public void snapshotsFollowSpecialMoves() throws InvalidMoveException {
+        ChessGame game = Fen.parse("r3k2r/1P6/8/8/3p4/8/4P3/R3K2R w KQkq - 0 1");
+        game.getSnapshot(0);
+        // e4 and dxe3 en passant, both sides castle, then b8=Q
+        ChessMove[] moves = {
+                move(2, 5, 4, 5), move(4, 4, 3, 5),
+                move(1, 5, 1, 3), move(8, 5, 8, 7),
+                new ChessMove(new ChessPosition(7, 2), new ChessPosition(8, 2), ChessPiece.PieceType.QUEEN),
+        };
+        for (ChessMove move : moves) {
+            game.makeMove(move);
+        }
+        for (int ply = 0; ply <= game.getMoveCount(); ply++) {
+            assertEquals(BoardSnapshot.of(game.replay(ply).getBoard()), game.getSnapshot(ply),
+                    "after " + ply + " moves");
+        }
+    }
+
+    @Test
+    public void snapshotsFollowMovesMadeAround() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(move(2, 5, 4, 5));
+        game.getSnapshot(1);
+        // the same number of plies as before, but a different position
+        game.undoMove();
+        game.doMove(PackedMove.of(11, 27));
+        assertEquals(BoardSnapshot.of(game.getBoard()), game.getSnapshot(1));
+    }
+
+    @Test
+    public void unchangedRowsAreShared() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(move(2, 5, 4, 5));
+        BoardSnapshot before = game.getSnapshot(0);
+        BoardSnapshot after = game.getSnapshot(1);
+
+        assertFalse(before.sharesRow(after, 2));
+        assertFalse(before.sharesRow(after, 4));
+        for (int row : new int[]{1, 3, 5, 6, 7, 8}) {
+            assertTrue(before.sharesRow(after, row), "row " + row);
+        }
+    }
+
+    @Test
+    public void withLeavesOriginalUnchanged() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        BoardSnapshot snapshot = BoardSnapshot.of(board);
+        ChessPosition e4 = new ChessPosition(4, 5);
+        ChessPiece queen = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN);
+
+        BoardSnapshot changed = snapshot.with(e4, queen);
+        assertNull(snapshot.getPiece(e4));
+        assertEquals(queen, changed.getPiece(e4));
+        assertTrue(snapshot.sharesRow(changed, 1));
+        assertEquals(board, snapshot.toBoard());
+    }
+}
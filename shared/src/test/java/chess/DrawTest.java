@@ -0,0 +1,83 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static chess.TestMoves.move;
+
+public class DrawTest {
+
+    private static final ChessMove WHITE_OUT = move(1, 7, 3, 6);
+    private static final ChessMove WHITE_BACK = move(3, 6, 1, 7);
+    private static final ChessMove BLACK_OUT = move(8, 7, 6, 6);
+    private static final ChessMove BLACK_BACK = move(6, 6, 8, 7);
+
+    @Test
+    public void threefoldRepetition() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        shuffleKnights(game);
+        // the start position has now come up twice
+        assertEquals(ChessGame.GameStatus.IN_PROGRESS, game.status());
+
+        shuffleKnights(game);
+        assertEquals(ChessGame.GameStatus.THREEFOLD_REPETITION, game.status());
+        assertTrue(game.status().isDraw());
+    }
+
+    @Test
+    public void pawnMoveStartsNewCount() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        shuffleKnights(game);
+        game.makeMove(move(2, 1, 3, 1));
+        game.makeMove(move(7, 1, 6, 1));
+        shuffleKnights(game);
+        shuffleKnights(game);
+
+        // the start position came up twice before the pawn moves, which no longer counts
+        assertEquals(8, game.getHalfmoveClock());
+        assertEquals(ChessGame.GameStatus.THREEFOLD_REPETITION, game.status());
+        game.undoMove();
+        assertEquals(ChessGame.GameStatus.IN_PROGRESS, game.status());
+    }
+
+    @Test
+    public void repetitionSurvivesSaving() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        shuffleKnights(game);
+        shuffleKnights(game);
+
+        Gson gson = new Gson();
+        ChessGame loaded = gson.fromJson(gson.toJson(game), ChessGame.class);
+        assertEquals(ChessGame.GameStatus.THREEFOLD_REPETITION, loaded.status());
+    }
+
+    @Test
+    public void fiftyMoveRule() throws InvalidMoveException {
+        ChessGame game = Fen.parse("4k3/8/8/8/8/8/4P3/R3K3 w - - 99 80");
+        assertEquals(ChessGame.GameStatus.IN_PROGRESS, game.status());
+
+        game.makeMove(move(1, 1, 1, 2));
+        assertEquals(100, game.getHalfmoveClock());
+        assertEquals(ChessGame.GameStatus.FIFTY_MOVE_RULE, game.status());
+
+        game.undoMove();
+        game.makeMove(move(2, 5, 3, 5));
+        assertEquals(0, game.getHalfmoveClock());
+        assertEquals(ChessGame.GameStatus.IN_PROGRESS, game.status());
+    }
+
+    @Test
+    public void checkmateBeatsFiftyMoveRule() throws InvalidMoveException {
+        ChessGame game = Fen.parse("k7/8/1K6/8/8/8/8/7R w - - 99 80");
+        game.makeMove(move(1, 8, 8, 8));
+        assertEquals(ChessGame.GameStatus.CHECKMATE, game.status());
+    }
+
+    private static void shuffleKnights(ChessGame game) throws InvalidMoveException {
+        game.makeMove(WHITE_OUT);
+        game.makeMove(BLACK_OUT);
+        game.makeMove(WHITE_BACK);
+        game.makeMove(BLACK_BACK);
+    }
+}
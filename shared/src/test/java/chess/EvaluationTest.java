@@ -0,0 +1,56 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EvaluationTest {
+
+    @Test
+    public void startPositionIsEven() {
+        assertEquals(0, new ChessGame().evaluate());
+    }
+
+    @Test
+    public void scoreIsForSideToMove() {
+        ChessGame white = Fen.parse("4k3/8/8/8/8/8/8/Q3K3 w - - 0 1");
+        ChessGame black = Fen.parse("4k3/8/8/8/8/8/8/Q3K3 b - - 0 1");
+
+        assertTrue(white.evaluate() > 800);
+        assertEquals(-white.evaluate(), black.evaluate());
+    }
+
+    @Test
+    public void mirroredPositionsScoreTheSame() {
+        ChessGame game = Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        ChessGame mirrored = Fen.parse("r3k2r/pppbbppp/2n2q1P/1P2p3/3pn3/BN2PNP1/P1PPQPB1/R3K2R b KQkq - 0 1");
+
+        assertEquals(game.evaluate(), mirrored.evaluate());
+    }
+
+    @Test
+    public void incrementalScoreMatchesRescan() {
+        for (PerftPositions position : PerftPositions.values()) {
+            ChessGame game = Fen.parse(position.fen);
+            int before = game.evaluate();
+            checkTree(game, 3);
+            assertEquals(before, game.evaluate(), position.name());
+        }
+    }
+
+    private static void checkTree(ChessGame game, int depth) {
+        // a board rebuilt from its grid sums every square from scratch
+        int rescanned = BitBoard.of(game.getBoard().getBoard()).evaluation();
+        assertEquals(rescanned, game.getBoard().getBitBoard().evaluation());
+        if (depth == 0) {
+            return;
+        }
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = game.generateLegalMoves(moves);
+        for (int i = 0; i < count; i++) {
+            game.doMove(moves[i]);
+            checkTree(game, depth - 1);
+            game.undoMove();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InterningTest {
+
+    @Test
+    public void positionsAreShared() {
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPosition position = ChessPosition.of(row, col);
+                assertSame(position, ChessPosition.of(row, col));
+                assertSame(position, ChessPosition.of(BitBoard.square(row, col)));
+                assertEquals(new ChessPosition(row, col), position);
+                assertEquals(new ChessPosition(row, col).hashCode(), position.hashCode());
+            }
+        }
+    }
+
+    @Test
+    public void positionsOffTheBoardAreFresh() {
+        int[][] squares = {{0, 3}, {9, 9}, {4, -1}};
+        for (int[] square : squares) {
+            ChessPosition first = ChessPosition.of(square[0], square[1]);
+            ChessPosition second = ChessPosition.of(square[0], square[1]);
+            assertNotSame(first, second);
+            assertEquals(first, second);
+            assertEquals(new ChessPosition(square[0], square[1]), first);
+            assertEquals(first.hashCode(), second.hashCode());
+        }
+        assertNotEquals(ChessPosition.of(1, 1), ChessPosition.of(0, 1));
+    }
+
+    @Test
+    public void movesAreShared() {
+        ChessPosition e2 = ChessPosition.of(2, 5);
+        ChessPosition e4 = ChessPosition.of(4, 5);
+        ChessMove move = ChessMove.of(e2, e4, null);
+        assertSame(move, ChessMove.of(e2, e4, null));
+        assertSame(move, ChessMove.of(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        assertSame(move, ChessMove.of(PackedMove.of(12, 28)));
+        assertEquals(new ChessMove(e2, e4, null), move);
+
+        ChessPosition b7 = ChessPosition.of(7, 2);
+        ChessPosition b8 = ChessPosition.of(8, 2);
+        ChessMove queen = ChessMove.of(b7, b8, ChessPiece.PieceType.QUEEN);
+        assertSame(queen, ChessMove.of(b7, b8, ChessPiece.PieceType.QUEEN));
+        assertEquals(new ChessMove(b7, b8, ChessPiece.PieceType.QUEEN), queen);
+        assertNotEquals(ChessMove.of(b7, b8, ChessPiece.PieceType.KNIGHT), queen);
+    }
+
+    @Test
+    public void movesNoPieceMakesAreFresh() {
+        // a1-b4 is neither a line nor a knight's move, and a0 is off the board
+        ChessPosition a1 = ChessPosition.of(1, 1);
+        ChessPosition[] targets = {ChessPosition.of(4, 2), new ChessPosition(0, 1)};
+        for (ChessPosition target : targets) {
+            ChessMove first = ChessMove.of(a1, target, null);
+            ChessMove second = ChessMove.of(a1, target, null);
+            assertNotSame(first, second);
+            assertEquals(first, second);
+            assertEquals(new ChessMove(a1, target, null), first);
+            assertEquals(first.hashCode(), second.hashCode());
+        }
+    }
+
+    @Test
+    public void piecesAreShared() {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+                ChessPiece piece = ChessPiece.of(color, type);
+                assertSame(piece, ChessPiece.of(color, type));
+                assertSame(piece, ChessPiece.of(new ChessPiece(color, type)));
+                assertEquals(new ChessPiece(color, type), piece);
+            }
+        }
+        assertNull(ChessPiece.of(null));
+
+        // a copied board holds the very same pieces
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        ChessPosition e1 = ChessPosition.of(1, 5);
+        assertSame(board.getPiece(e1), board.copy().getPiece(e1));
+    }
+
+    @Test
+    public void sharedPiecesCannotBePromoted() {
+        ChessPiece pawn = ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
+        assertThrows(UnsupportedOperationException.class, () -> pawn.promote(ChessPiece.PieceType.QUEEN));
+        assertEquals(ChessPiece.PieceType.PAWN, pawn.getPieceType());
+
+        // a piece of its own can still be promoted
+        ChessPiece own = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
+        own.promote(ChessPiece.PieceType.QUEEN);
+        assertEquals(ChessPiece.PieceType.QUEEN, own.getPieceType());
+    }
+
+    @Test
+    public void promotingInAGameLeavesSharedPawnAlone() throws InvalidMoveException {
+        ChessGame game = Fen.parse("4k3/1P6/8/8/8/8/8/4K3 w - - 0 1");
+        ChessPiece pawn = game.getBoard().getPiece(ChessPosition.of(7, 2));
+        game.makeMove(new ChessMove(ChessPosition.of(7, 2), ChessPosition.of(8, 2), ChessPiece.PieceType.QUEEN));
+
+        assertEquals(ChessPiece.PieceType.PAWN, pawn.getPieceType());
+        assertSame(ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN),
+                game.getBoard().getPiece(ChessPosition.of(8, 2)));
+    }
+}
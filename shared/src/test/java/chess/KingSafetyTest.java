@@ -0,0 +1,101 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KingSafetyTest {
+
+    @Test
+    public void pinnedPiecesStayOnTheLine() {
+        // the e2 rook is pinned along the e-file and the d2 bishop along the b4-e1 diagonal
+        String fen = "4r2k/8/8/8/1b6/8/3BR3/4K3 w - - 0 1";
+        for (ChessGame game : bothGenerators(fen)) {
+            Collection<ChessMove> rook = game.validMoves(new ChessPosition(2, 5));
+            assertEquals(6, rook.size());
+            for (ChessMove move : rook) {
+                assertEquals(5, move.getEndPosition().getColumn());
+            }
+            Collection<ChessMove> bishop = game.validMoves(new ChessPosition(2, 4));
+            assertEquals(2, bishop.size());
+            assertTrue(bishop.contains(new ChessMove(new ChessPosition(2, 4), new ChessPosition(4, 2), null)));
+        }
+    }
+
+    @Test
+    public void kingCannotStepAlongTheCheckingLine() {
+        // the rook checks along the e-file, so e3 is attacked once the king has left e4
+        String fen = "4r2k/8/8/8/4K3/8/8/8 w - - 0 1";
+        for (ChessGame game : bothGenerators(fen)) {
+            Collection<ChessMove> king = game.validMoves(new ChessPosition(4, 5));
+            for (ChessMove move : king) {
+                assertNotEquals(5, move.getEndPosition().getColumn(), move.toString());
+            }
+            assertEquals(6, king.size());
+        }
+    }
+
+    @Test
+    public void movingOffTheLineDiscoversCheck() {
+        // the knight on e3 shields its king from the queen on e8, so it cannot move
+        String fen = "4q2k/8/8/8/8/4N3/8/4K3 w - - 0 1";
+        for (ChessGame game : bothGenerators(fen)) {
+            assertTrue(game.validMoves(new ChessPosition(3, 5)).isEmpty());
+        }
+    }
+
+    @Test
+    public void enPassantCannotExposeTheKing() {
+        // b5xc6 would take both pawns off the fifth rank and leave the king to the rook
+        String fen = "8/8/8/KPp4r/8/8/8/4k3 w - c6 0 1";
+        for (ChessGame game : bothGenerators(fen)) {
+            Collection<ChessMove> pawn = game.validMoves(new ChessPosition(5, 2));
+            assertEquals(1, pawn.size());
+            assertEquals(new ChessPosition(6, 2), pawn.iterator().next().getEndPosition());
+        }
+    }
+
+    @Test
+    public void enPassantCanCaptureTheChecker() {
+        // the d4 pawn checks the king, and taking it en passant ends the check
+        String fen = "8/8/8/2k5/3Pp3/8/8/4K3 b - d3 0 1";
+        for (ChessGame game : bothGenerators(fen)) {
+            assertTrue(game.isInCheck(ChessGame.TeamColor.BLACK));
+            assertTrue(game.validMoves(new ChessPosition(4, 5))
+                    .contains(new ChessMove(new ChessPosition(4, 5), new ChessPosition(3, 4), null)));
+        }
+    }
+
+    @Test
+    public void generatorsAgree() {
+        String[] fens = {
+                "4r2k/8/8/8/1b6/8/3BR3/4K3 w - - 0 1",
+                "4r2k/8/8/8/4K3/8/8/8 w - - 0 1",
+                "4q2k/8/8/8/8/4N3/8/4K3 w - - 0 1",
+                "8/8/8/KPp4r/8/8/8/4k3 w - c6 0 1",
+                "8/8/8/2k5/3Pp3/8/8/4K3 b - d3 0 1",
+        };
+        for (String fen : fens) {
+            ChessGame[] games = bothGenerators(fen);
+            assertArrayEquals(moves(games[0]), moves(games[1]), fen);
+        }
+    }
+
+    private static ChessGame[] bothGenerators(String fen) {
+        ChessGame filtered = Fen.parse(fen);
+        filtered.setMoveGeneration(ChessGame.MoveGeneration.FILTERED);
+        ChessGame masked = Fen.parse(fen);
+        masked.setMoveGeneration(ChessGame.MoveGeneration.MASKED);
+        return new ChessGame[]{filtered, masked};
+    }
+
+    private static int[] moves(ChessGame game) {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int[] sorted = Arrays.copyOf(moves, game.generateLegalMoves(moves));
+        Arrays.sort(sorted);
+        return sorted;
+    }
+}
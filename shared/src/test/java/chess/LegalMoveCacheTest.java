@@ -0,0 +1,81 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LegalMoveCacheTest {
+
+    @Test
+    public void followsDoAndUndo() {
+        ChessGame game = Fen.parse(PerftPositions.KIWIPETE.fen);
+        int[] before = cached(game);
+        assertArrayEquals(generated(game), before);
+
+        // e1g1, then black's replies
+        game.doMove(PackedMove.of(4, 6));
+        assertArrayEquals(generated(game), cached(game));
+        assertFalse(Arrays.equals(before, cached(game)));
+
+        game.undoMove();
+        assertArrayEquals(before, cached(game));
+    }
+
+    @Test
+    public void followsSetBoard() {
+        ChessGame game = new ChessGame();
+        assertEquals(20, cached(game).length);
+
+        game.setBoard(Fen.parse(PerftPositions.ENDGAME.fen).getBoard());
+        assertArrayEquals(generated(game), cached(game));
+        assertEquals(PerftPositions.ENDGAME.expected(1), cached(game).length);
+    }
+
+    @Test
+    public void followsChangesToTheBoard() {
+        ChessGame game = new ChessGame();
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        game.setBoard(board);
+        assertEquals(20, cached(game).length);
+
+        // a black knight dropped on d3 gives check, so the cached opening moves no longer apply
+        board.addPiece(new ChessPosition(3, 4), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+        assertArrayEquals(generated(game), cached(game));
+        assertEquals(ChessGame.GameStatus.CHECK, game.status());
+    }
+
+    @Test
+    public void validMovesFollowDoAndUndo() {
+        ChessGame game = new ChessGame();
+        ChessPosition e2 = new ChessPosition(2, 5);
+        assertEquals(2, game.validMoves(e2).size());
+
+        // 1. d4 e5 opens d2 and d3 to the queen
+        game.doMove(PackedMove.of(11, 27));
+        game.doMove(PackedMove.of(52, 36));
+        ChessPosition d1 = new ChessPosition(1, 4);
+        assertEquals(2, game.validMoves(d1).size());
+
+        game.undoMove();
+        game.undoMove();
+        assertEquals(0, game.validMoves(d1).size());
+        assertEquals(2, game.validMoves(e2).size());
+    }
+
+    private static int[] cached(ChessGame game) {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int[] sorted = Arrays.copyOf(moves, game.legalMoves(moves));
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    private static int[] generated(ChessGame game) {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int[] sorted = Arrays.copyOf(moves, game.generateLegalMoves(moves));
+        Arrays.sort(sorted);
+        return sorted;
+    }
+}
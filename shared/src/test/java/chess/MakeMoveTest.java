@@ -0,0 +1,45 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MakeMoveTest {
+
+    @Test
+    public void offTheBoardIsInvalid() {
+        ChessGame game = new ChessGame();
+        ChessBoard before = game.getBoard().copy();
+        // a1 to (1,9) would pack as a1-a2, and b1 to (2,11) as b1-c3
+        ChessMove[] moves = {
+                new ChessMove(new ChessPosition(1, 1), new ChessPosition(1, 9), null),
+                new ChessMove(new ChessPosition(1, 2), new ChessPosition(2, 11), null),
+                new ChessMove(new ChessPosition(0, 2), new ChessPosition(3, 3), null),
+                new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 0), null),
+        };
+        for (ChessMove move : moves) {
+            assertThrows(InvalidMoveException.class, () -> game.makeMove(move), move.toString());
+        }
+        assertEquals(before, game.getBoard());
+        assertEquals(ChessGame.TeamColor.WHITE, game.getTeamTurn());
+        assertNull(game.validMoves(new ChessPosition(1, 9)));
+    }
+
+    @Test
+    public void promotionMustBeAllowed() throws InvalidMoveException {
+        ChessGame game = Fen.parse("4k3/1P6/8/8/8/8/4P3/4K3 w - - 0 1");
+        ChessPosition b7 = new ChessPosition(7, 2);
+        ChessPosition b8 = new ChessPosition(8, 2);
+        for (ChessPiece.PieceType type : new ChessPiece.PieceType[]{ChessPiece.PieceType.KING,
+                ChessPiece.PieceType.PAWN}) {
+            assertThrows(InvalidMoveException.class, () -> game.makeMove(new ChessMove(b7, b8, type)));
+        }
+        // a pawn short of the last rank cannot promote, and one reaching it must
+        assertThrows(InvalidMoveException.class, () -> game.makeMove(
+                new ChessMove(new ChessPosition(2, 5), new ChessPosition(3, 5), ChessPiece.PieceType.QUEEN)));
+        assertThrows(InvalidMoveException.class, () -> game.makeMove(new ChessMove(b7, b8, null)));
+
+        game.makeMove(new ChessMove(b7, b8, ChessPiece.PieceType.KNIGHT));
+        assertEquals(ChessPiece.PieceType.KNIGHT, game.getBoard().getPiece(b8).getPieceType());
+    }
+}
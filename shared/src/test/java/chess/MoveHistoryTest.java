@@ -0,0 +1,174 @@
+package chess;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static chess.TestMoves.move;
+
+public class MoveHistoryTest {
+
+    // an opening with a capture, en passant, castling and a promotion in it
+    private static final ChessMove[] MOVES = {
+            move(2, 5, 4, 5), move(7, 4, 5, 4),
+            move(4, 5, 5, 5), move(7, 6, 5, 6),
+            move(5, 5, 6, 6), move(8, 7, 6, 6),
+            move(1, 7, 3, 6), move(7, 3, 5, 3),
+            move(1, 6, 2, 5), move(5, 3, 4, 3),
+            move(1, 5, 1, 7), move(4, 3, 3, 3),
+            move(2, 4, 3, 4), move(3, 3, 2, 2),
+            move(1, 3, 2, 4), promotion(2, 2, 1, 1, ChessPiece.PieceType.QUEEN),
+    };
+
+    @Test
+    public void recordsEveryMove() throws InvalidMoveException {
+        ChessGame game = play();
+
+        assertEquals(MOVES.length, game.getMoveCount());
+        assertEquals(2, game.getCapturedCount(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        assertEquals(1, game.getCapturedCount(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        assertEquals(1, game.getCapturedCount(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+        for (int ply = 0; ply < MOVES.length; ply++) {
+            assertEquals(MOVES[ply], game.getMove(ply));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> game.getMove(MOVES.length));
+    }
+
+    @Test
+    public void replayRebuildsEarlierPositions() throws InvalidMoveException {
+        ChessGame game = play();
+        ChessGame expected = new ChessGame();
+
+        for (int ply = 0; ply <= MOVES.length; ply++) {
+            ChessGame replayed = game.replay(ply);
+            assertEquals(expected, replayed, "after " + ply + " moves");
+            assertEquals(expected.positionKey(), replayed.positionKey(), "after " + ply + " moves");
+            if (ply < MOVES.length) {
+                expected.makeMove(MOVES[ply]);
+            }
+        }
+        assertEquals(MOVES.length, game.getMoveCount());
+    }
+
+    @Test
+    public void takeBackAll() throws InvalidMoveException {
+        ChessGame game = play();
+        for (int i = 0; i < MOVES.length; i++) {
+            game.takeBack();
+        }
+
+        assertEquals(new ChessGame(), game);
+        assertEquals(0, game.getCapturedCount(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        assertThrows(InvalidMoveException.class, game::takeBack);
+    }
+
+    @Test
+    public void historySurvivesSaving() throws InvalidMoveException {
+        Gson gson = new Gson();
+        ChessGame loaded = gson.fromJson(gson.toJson(play()), ChessGame.class);
+
+        assertEquals(MOVES.length, loaded.getMoveCount());
+        assertEquals(new ChessGame(), loaded.replay(0));
+    }
+
+    @Test
+    public void savesOnlyPlayedMoves() throws InvalidMoveException {
+        ChessGame game = play();
+        game.takeBack();
+        game.takeBack();
+        Gson gson = new Gson();
+        JsonObject history = gson.toJsonTree(game).getAsJsonObject().getAsJsonObject("history");
+
+        assertEquals(2, history.size());
+        assertEquals(MOVES.length - 2, history.getAsJsonArray("moves").size());
+        assertEquals(MOVES.length - 2, history.getAsJsonArray("states").size());
+
+        ChessGame loaded = gson.fromJson(gson.toJson(game), ChessGame.class);
+        assertEquals(game, loaded);
+        assertEquals(game.positionKey(), loaded.positionKey());
+        for (int ply = 0; ply < MOVES.length - 2; ply++) {
+            assertEquals(game.replay(ply).positionKey(), loaded.replay(ply).positionKey());
+        }
+    }
+
+    @Test
+    public void oldHistoryDropsStaleEntries() throws InvalidMoveException {
+        ChessGame game = play();
+        Gson gson = new Gson();
+        // saved whole, as before: spare capacity and two plies since taken back, with their keys
+        JsonObject saved = gson.toJsonTree(game).getAsJsonObject();
+        JsonObject history = saved.getAsJsonObject("history");
+        JsonArray keys = new JsonArray();
+        for (int i = 0; i < 32; i++) {
+            keys.add(i * 31L);
+        }
+        history.add("keys", keys);
+        history.addProperty("size", MOVES.length - 2);
+        game.takeBack();
+        game.takeBack();
+        saved.add("board", gson.toJsonTree(game.getBoard()));
+        saved.add("turn", gson.toJsonTree(game.getTeamTurn()));
+        saved.add("capturedCounts", gson.toJsonTree(game.capturedCounts));
+        saved.addProperty("castlingRights", game.castlingRights);
+        saved.addProperty("enPassantFile", game.enPassantFile);
+        saved.addProperty("halfmoveClock", game.getHalfmoveClock());
+
+        ChessGame loaded = gson.fromJson(saved, ChessGame.class);
+        assertEquals(MOVES.length - 2, loaded.getMoveCount());
+        assertEquals(game, loaded);
+        assertEquals(new ChessGame().positionKey(), loaded.replay(0).positionKey());
+    }
+
+    @Test
+    public void oldSaveKeepsCaptures() {
+        // 1. e4 d5 2. exd5 Qxd5, as saved when a game listed its captured pieces
+        String json = """
+                {"turn":"WHITE","board":{"board":[
+                [{"pieceColor":"WHITE","type":"ROOK"},{"pieceColor":"WHITE","type":"KNIGHT"},\
+                {"pieceColor":"WHITE","type":"BISHOP"},{"pieceColor":"WHITE","type":"QUEEN"},\
+                {"pieceColor":"WHITE","type":"KING"},{"pieceColor":"WHITE","type":"BISHOP"},\
+                {"pieceColor":"WHITE","type":"KNIGHT"},{"pieceColor":"WHITE","type":"ROOK"}],
+                [{"pieceColor":"WHITE","type":"PAWN"},{"pieceColor":"WHITE","type":"PAWN"},\
+                {"pieceColor":"WHITE","type":"PAWN"},{"pieceColor":"WHITE","type":"PAWN"},null,\
+                {"pieceColor":"WHITE","type":"PAWN"},{"pieceColor":"WHITE","type":"PAWN"},\
+                {"pieceColor":"WHITE","type":"PAWN"}],
+                [null,null,null,null,null,null,null,null],
+                [null,null,null,null,null,null,null,null],
+                [null,null,null,{"pieceColor":"BLACK","type":"QUEEN"},null,null,null,null],
+                [null,null,null,null,null,null,null,null],
+                [{"pieceColor":"BLACK","type":"PAWN"},{"pieceColor":"BLACK","type":"PAWN"},\
+                {"pieceColor":"BLACK","type":"PAWN"},null,{"pieceColor":"BLACK","type":"PAWN"},\
+                {"pieceColor":"BLACK","type":"PAWN"},{"pieceColor":"BLACK","type":"PAWN"},\
+                {"pieceColor":"BLACK","type":"PAWN"}],
+                [{"pieceColor":"BLACK","type":"ROOK"},{"pieceColor":"BLACK","type":"KNIGHT"},\
+                {"pieceColor":"BLACK","type":"BISHOP"},null,{"pieceColor":"BLACK","type":"KING"},\
+                {"pieceColor":"BLACK","type":"BISHOP"},{"pieceColor":"BLACK","type":"KNIGHT"},\
+                {"pieceColor":"BLACK","type":"ROOK"}]]},
+                "capturedPieces":[{"pieceColor":"BLACK","type":"PAWN"},{"pieceColor":"WHITE","type":"PAWN"}],
+                "gameOver":false}""";
+        Gson gson = new Gson();
+        ChessGame loaded = gson.fromJson(json, ChessGame.class);
+        // saved again straight away, the game is in the new format only
+        String saved = gson.toJson(loaded);
+        assertFalse(saved.contains("capturedPieces"));
+
+        assertEquals(1, loaded.getCapturedCount(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        assertEquals(1, loaded.getCapturedCount(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+        assertEquals(0, loaded.getCapturedCount(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN));
+        assertEquals(loaded, gson.fromJson(saved, ChessGame.class));
+    }
+
+    private static ChessGame play() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        for (ChessMove move : MOVES) {
+            game.makeMove(move);
+        }
+        return game;
+    }
+
+    private static ChessMove promotion(int fromRow, int fromCol, int toRow, int toCol, ChessPiece.PieceType type) {
+        return new ChessMove(new ChessPosition(fromRow, fromCol), new ChessPosition(toRow, toCol), type);
+    }
+}
@@ -0,0 +1,43 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MoveOrderingTest {
+
+    @Test
+    public void capturesByVictimThenAttacker() {
+        // the queen on d5 can be taken by the pawn or the rook, the knight on g5 by the bishop
+        ChessGame game = Fen.parse("4k3/8/8/3q2n1/4P3/4B3/3R4/K7 w - - 0 1");
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = game.generateLegalMoves(moves);
+        MoveOrdering ordering = new MoveOrdering(4);
+
+        int captures = ordering.scoreCaptures(game.getBoard(), moves, count, 0);
+        assertEquals(3, captures);
+        assertEquals(PackedMove.of(28, 35), ordering.next(moves, captures, 0, 0));
+        assertEquals(PackedMove.of(11, 35), ordering.next(moves, captures, 1, 0));
+        assertEquals(PackedMove.of(20, 38), ordering.next(moves, captures, 2, 0));
+    }
+
+    @Test
+    public void hashMoveThenCapturesThenKillersThenHistory() {
+        ChessGame game = Fen.parse("4k3/8/8/3q4/4P3/8/8/K7 w - - 0 1");
+        ChessBoard board = game.getBoard();
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = game.generateLegalMoves(moves);
+        MoveOrdering ordering = new MoveOrdering(4);
+        int hashMove = PackedMove.of(0, 9);
+        int killer = PackedMove.of(28, 36);
+        int historyMove = PackedMove.of(0, 1);
+        ordering.cutoff(board, historyMove, 6, 2);
+        ordering.cutoff(board, killer, 1, 1);
+
+        ordering.score(board, moves, count, hashMove, 1);
+        assertEquals(hashMove, ordering.next(moves, count, 0, 1));
+        assertEquals(PackedMove.of(28, 35), ordering.next(moves, count, 1, 1));
+        assertEquals(killer, ordering.next(moves, count, 2, 1));
+        assertEquals(historyMove, ordering.next(moves, count, 3, 1));
+    }
+}
@@ -0,0 +1,54 @@
+package chess;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures move generation throughput as perft nodes per second. The
+ * "nodes" counter in the JMH results is the number to compare between runs.
+ * <p>
+ * Run with {@code mvn -pl shared test-compile exec:exec} from the project root.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PerftBenchmark {
+
+    @Param({"START", "ENDGAME", "MIDDLEGAME", "KIWIPETE"})
+    public PerftPositions position;
+
+    @Param({"FILTERED", "MASKED"})
+    public ChessGame.MoveGeneration generation;
+
+    private ChessGame game;
+    private int depth;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Nodes {
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            nodes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        game = Fen.parse(position.fen);
+        game.setMoveGeneration(generation);
+        depth = position.maxDepth();
+    }
+
+    @Benchmark
+    public long perft(Nodes counter) {
+        long nodes = Perft.perft(game, depth);
+        counter.nodes += nodes;
+        return nodes;
+    }
+}
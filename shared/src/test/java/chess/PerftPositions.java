@@ -0,0 +1,42 @@
+package chess;
+
+/**
+ * Standard perft reference positions with their published node counts, used
+ * by both the perft tests and the perft benchmark.
+ */
+public enum PerftPositions {
+    START(Fen.START, 20, 400, 8902, 197281),
+    // "position 3" from the Chess Programming Wiki perft results
+    ENDGAME("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", 14, 191, 2812, 43238),
+    // "position 6" from the Chess Programming Wiki perft results
+    MIDDLEGAME("r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10", 46, 2079, 89890),
+    // "Kiwipete", position 2 from the Chess Programming Wiki: castling, en passant,
+    // promotions and pins all in one position
+    KIWIPETE("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", 48, 2039, 97862),
+    // "position 4" from the Chess Programming Wiki, with castling rights only for black
+    PROMOTIONS("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", 6, 264, 9467),
+    // "position 5" from the Chess Programming Wiki
+    TRICKY("rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", 44, 1486, 62379);
+
+    public final String fen;
+    private final long[] counts;
+
+    PerftPositions(String fen, long... counts) {
+        this.fen = fen;
+        this.counts = counts;
+    }
+
+    /**
+     * @return the deepest depth with a known count
+     */
+    public int maxDepth() {
+        return counts.length;
+    }
+
+    /**
+     * @return the published number of leaf nodes at a depth (starting at 1)
+     */
+    public long expected(int depth) {
+        return counts[depth - 1];
+    }
+}
@@ -0,0 +1,102 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PerftTest {
+
+    @Test
+    public void referencePositions() {
+        for (ChessGame.MoveGeneration generation : ChessGame.MoveGeneration.values()) {
+            for (PerftPositions position : PerftPositions.values()) {
+                for (int depth = 1; depth <= position.maxDepth(); depth++) {
+                    ChessGame game = Fen.parse(position.fen);
+                    game.setMoveGeneration(generation);
+                    assertEquals(position.expected(depth), Perft.perft(game, depth),
+                            generation + " " + position + " perft(" + depth + ")");
+                }
+            }
+        }
+    }
+
+    @Test
+    public void generatorsAgreeAtEveryNode() {
+        for (PerftPositions position : PerftPositions.values()) {
+            ChessGame game = Fen.parse(position.fen);
+            compareGenerators(game, 3);
+        }
+    }
+
+    private static void compareGenerators(ChessGame game, int depth) {
+        int[] masked = new int[MoveGenerator.MAX_MOVES];
+        int[] filtered = new int[MoveGenerator.MAX_MOVES];
+        game.setMoveGeneration(ChessGame.MoveGeneration.FILTERED);
+        int filteredCount = game.generateLegalMoves(filtered);
+        game.setMoveGeneration(ChessGame.MoveGeneration.MASKED);
+        int maskedCount = game.generateLegalMoves(masked);
+
+        int[] expected = Arrays.copyOf(filtered, filteredCount);
+        int[] actual = Arrays.copyOf(masked, maskedCount);
+        Arrays.sort(expected);
+        Arrays.sort(actual);
+        assertArrayEquals(expected, actual, "legal moves differ at " + game.getBoard().getBitBoard().key());
+        if (depth > 1) {
+            for (int move : expected) {
+                game.doMove(move);
+                compareGenerators(game, depth - 1);
+                game.undoMove();
+            }
+        }
+    }
+
+    @Test
+    public void perftLeavesGameUnchanged() {
+        for (PerftPositions position : new PerftPositions[] {PerftPositions.MIDDLEGAME, PerftPositions.KIWIPETE}) {
+            ChessGame game = Fen.parse(position.fen);
+            ChessGame before = Fen.parse(position.fen);
+            long key = game.positionKey();
+
+            Perft.perft(game, 3);
+
+            assertEquals(before, game, position.toString());
+            assertEquals(key, game.positionKey(), position.toString());
+        }
+    }
+
+    @Test
+    public void castlingAndEnPassantStateIsHashed() {
+        ChessGame withRights = Fen.parse("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1");
+        ChessGame withoutRights = Fen.parse("r3k2r/8/8/8/8/8/8/R3K2R w - - 0 1");
+        assertEquals(CastlingRights.ALL, withRights.getCastlingRights());
+        assertNotEquals(withRights.positionKey(), withoutRights.positionKey());
+
+        // only kept when a pawn can actually capture en passant
+        ChessGame usable = Fen.parse("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1");
+        ChessGame unusable = Fen.parse("4k3/8/8/3p4/8/8/4P3/4K3 w - d6 0 1");
+        assertEquals(3, usable.getEnPassantFile());
+        assertEquals(-1, unusable.getEnPassantFile());
+        assertNotEquals(Fen.parse("4k3/8/8/3pP3/8/8/8/4K3 w - - 0 1").positionKey(), usable.positionKey());
+    }
+
+    @Test
+    public void divideSumsToPerft() {
+        ChessGame game = new ChessGame();
+        Map<ChessMove, Long> divide = Perft.divide(game, 3);
+
+        assertEquals(20, divide.size());
+        assertEquals(8902, divide.values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    public void parseRejectsBadFen() {
+        assertThrows(IllegalArgumentException.class, () -> Fen.parse("8/8/8 w"));
+        assertThrows(IllegalArgumentException.class, () -> Fen.parse("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR x"));
+        assertThrows(IllegalArgumentException.class, () -> Fen.parse("rnbqkbnr/pppppppp/9/8/8/8/PPPPPPPP/RNBQKBNR w"));
+        assertThrows(IllegalArgumentException.class, () -> Fen.parse("r3k2r/8/8/8/8/8/8/R3K2R w KX - 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> Fen.parse("4k3/8/8/8/8/8/8/4K3 w - e4 0 1"));
+    }
+}
@@ -0,0 +1,83 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PositionKeyTest {
+
+    @Test
+    public void specialMovesMatchRebuild() {
+        ChessGame castling = Fen.parse(PerftPositions.KIWIPETE.fen);
+        castling.doMove(PackedMove.of(4, 6));
+        assertEquals(rebuild(castling).positionKey(), castling.positionKey());
+
+        ChessGame enPassant = Fen.parse("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1");
+        long before = enPassant.positionKey();
+        enPassant.doMove(PackedMove.of(36, 43));
+        assertEquals(rebuild(enPassant).positionKey(), enPassant.positionKey());
+        enPassant.undoMove();
+        assertEquals(before, enPassant.positionKey());
+
+        ChessGame promotion = Fen.parse("r3k3/1P6/8/8/8/8/8/4K3 w - - 0 1");
+        promotion.doMove(PackedMove.of(49, 56, ChessPiece.PieceType.QUEEN));
+        assertEquals(rebuild(promotion).positionKey(), promotion.positionKey());
+    }
+
+    @Test
+    public void transpositionsShareKey() {
+        // 1. Nf3 Nf6 2. Nc3 Nc6 and 1. Nc3 Nc6 2. Nf3 Nf6
+        ChessGame kingsideFirst = play(PackedMove.of(6, 21), PackedMove.of(62, 45),
+                PackedMove.of(1, 18), PackedMove.of(57, 42));
+        ChessGame queensideFirst = play(PackedMove.of(1, 18), PackedMove.of(57, 42),
+                PackedMove.of(6, 21), PackedMove.of(62, 45));
+        assertEquals(kingsideFirst.positionKey(), queensideFirst.positionKey());
+
+        // both knights out and back again is the starting position once more
+        ChessGame returned = play(PackedMove.of(6, 21), PackedMove.of(62, 45),
+                PackedMove.of(21, 6), PackedMove.of(45, 62));
+        assertEquals(new ChessGame().positionKey(), returned.positionKey());
+    }
+
+    @Test
+    public void sideToMoveChangesKey() {
+        ChessGame whiteToMove = Fen.parse("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1");
+        ChessGame blackToMove = Fen.parse("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR b KQkq - 0 1");
+        assertNotEquals(whiteToMove.positionKey(), blackToMove.positionKey());
+    }
+
+    @Test
+    public void castlingRightsChangeKey() {
+        // the king steps out and back: the same pieces, but no castling rights left
+        ChessGame game = Fen.parse("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1");
+        long before = game.positionKey();
+        game.doMove(PackedMove.of(4, 5));
+        game.doMove(PackedMove.of(60, 61));
+        game.doMove(PackedMove.of(5, 4));
+        game.doMove(PackedMove.of(61, 60));
+
+        assertEquals(game.getBoard(), Fen.parse("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1").getBoard());
+        assertNotEquals(before, game.positionKey());
+        assertEquals(Fen.parse("r3k2r/8/8/8/8/8/8/R3K2R w - - 0 1").positionKey(), game.positionKey());
+    }
+
+    private static ChessGame play(int... moves) {
+        ChessGame game = new ChessGame();
+        for (int move : moves) {
+            game.doMove(move);
+        }
+        return game;
+    }
+
+    /**
+     * Builds the game's position again from its pieces and state alone, so
+     * its key is worked out from scratch rather than move by move
+     */
+    private static ChessGame rebuild(ChessGame game) {
+        ChessGame rebuilt = new ChessGame();
+        rebuilt.setBoard(new ChessBoard(game.getBoard().getBoard()));
+        rebuilt.setTeamTurn(game.getTeamTurn());
+        rebuilt.setPositionState(game.castlingRights, game.enPassantFile, game.getHalfmoveClock());
+        return rebuilt;
+    }
+}
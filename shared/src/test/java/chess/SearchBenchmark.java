@@ -0,0 +1,80 @@
+package chess;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the search two ways. {@code search} runs fixed-time searches and
+ * counts nodes per second over all search threads, so runs with different
+ * thread counts show how well Lazy SMP scales; its "nodes" counter is the
+ * number to compare. {@code fixedDepth} times a search to a fixed depth,
+ * which is what better move ordering speeds up; its score is the number to
+ * compare. Every operation starts from an empty transposition table.
+ * <p>
+ * Run with {@code mvn -pl shared test-compile exec:exec -Djmh.include=SearchBenchmark}
+ * from the project root.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SearchBenchmark {
+
+    private static final long SEARCH_MILLIS = 200;
+    private static final int FIXED_DEPTH = 6;
+
+    @Param({"START", "MIDDLEGAME", "KIWIPETE"})
+    public PerftPositions position;
+
+    @Param({"1", "2", "4"})
+    public int threads;
+
+    private ChessGame game;
+    private TranspositionTable table;
+    private Search search;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Nodes {
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            nodes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        game = Fen.parse(position.fen);
+        table = new TranspositionTable(16);
+        search = new Search(threads, table);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearTable() {
+        table.clear();
+    }
+
+    @TearDown
+    public void tearDown() {
+        search.close();
+    }
+
+    @Benchmark
+    public ChessMove search(Nodes counter) {
+        ChessMove move = search.bestMove(game, SEARCH_MILLIS);
+        counter.nodes += search.getNodes();
+        return move;
+    }
+
+    @Benchmark
+    public ChessMove fixedDepth(Nodes counter) {
+        ChessMove move = search.bestMove(game, TimeUnit.MINUTES.toMillis(10), FIXED_DEPTH);
+        counter.nodes += search.getNodes();
+        return move;
+    }
+}
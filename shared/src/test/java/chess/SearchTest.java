@@ -0,0 +1,80 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SearchTest {
+
+    @Test
+    public void findsMateInOne() {
+        ChessGame game = Fen.parse("k7/8/1K6/8/8/8/8/7R w - - 0 1");
+        ChessMove move = new Search().bestMove(game, 1000, 4);
+
+        assertEquals(new ChessMove(new ChessPosition(1, 8), new ChessPosition(8, 8), null), move);
+    }
+
+    @Test
+    public void takesHangingQueen() {
+        ChessGame game = Fen.parse("4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1");
+        ChessMove move = new Search().bestMove(game, 1000, 3);
+
+        assertEquals(new ChessMove(new ChessPosition(2, 4), new ChessPosition(5, 4), null), move);
+    }
+
+    @Test
+    public void seesMateAtHorizon() {
+        // at depth 1 the mate is only found if the side in check at the horizon
+        // cannot stand pat, otherwise taking the knight looks better
+        ChessGame game = Fen.parse("k7/8/1K6/8/8/8/8/3n3R w - - 0 1");
+        ChessMove move = new Search().bestMove(game, 1000, 1);
+
+        assertEquals(new ChessMove(new ChessPosition(1, 8), new ChessPosition(8, 8), null), move);
+    }
+
+    @Test
+    public void noMoveWhenMated() {
+        ChessGame game = Fen.parse("R5k1/5ppp/8/8/8/8/8/6K1 b - - 0 1");
+        assertNull(new Search().bestMove(game, 1000));
+    }
+
+    @Test
+    public void stopsAtDeadline() {
+        ChessGame game = Fen.parse(PerftPositions.KIWIPETE.fen);
+        ChessGame before = Fen.parse(PerftPositions.KIWIPETE.fen);
+        Search search = new Search();
+
+        // the bound is generous so a busy machine does not fail the test; a search
+        // that ignored its deadline would run on to MAX_DEPTH and take far longer
+        ChessMove move = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> search.bestMove(game, 100));
+
+        assertTrue(game.validMoves(move.getStartPosition()).contains(move));
+        assertTrue(search.getDepth() < Search.MAX_DEPTH);
+        assertEquals(before, game);
+    }
+
+    @Test
+    public void parallelSearchFindsMate() {
+        ChessGame game = Fen.parse("k7/8/1K6/8/8/8/8/7R w - - 0 1");
+        try (Search search = new Search(3, new TranspositionTable(1))) {
+            ChessMove move = search.bestMove(game, 1000, 6);
+            assertEquals(new ChessMove(new ChessPosition(1, 8), new ChessPosition(8, 8), null), move);
+            // the helpers are reused for a second search
+            assertEquals(move, search.bestMove(game, 1000, 6));
+        }
+    }
+
+    @Test
+    public void parallelSearchStopsAtDeadline() {
+        ChessGame game = Fen.parse(PerftPositions.KIWIPETE.fen);
+        try (Search search = new Search(3, new TranspositionTable(1))) {
+            ChessMove move = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> search.bestMove(game, 100));
+
+            assertTrue(game.validMoves(move.getStartPosition()).contains(move));
+            assertTrue(search.getDepth() < Search.MAX_DEPTH);
+        }
+        assertThrows(IllegalArgumentException.class, () -> new Search(0, new TranspositionTable(1)));
+    }
+}
@@ -0,0 +1,59 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StatusTest {
+
+    @Test
+    public void inProgress() {
+        checkStatus("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1", ChessGame.GameStatus.IN_PROGRESS);
+    }
+
+    @Test
+    public void check() {
+        checkStatus("4k3/8/8/8/8/8/8/4K2r w - - 0 1", ChessGame.GameStatus.CHECK);
+        checkStatus("4k3/8/8/1B6/8/8/8/4K3 b - - 0 1", ChessGame.GameStatus.CHECK);
+    }
+
+    @Test
+    public void checkmate() {
+        // a back rank mate, and fool's mate
+        checkStatus("R5k1/5ppp/8/8/8/8/8/6K1 b - - 0 1", ChessGame.GameStatus.CHECKMATE);
+        checkStatus("rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 1 3", ChessGame.GameStatus.CHECKMATE);
+    }
+
+    @Test
+    public void stalemate() {
+        checkStatus("k7/8/1Q6/8/8/8/8/7K b - - 0 1", ChessGame.GameStatus.STALEMATE);
+        checkStatus("7k/8/8/8/8/8/5q2/7K w - - 0 1", ChessGame.GameStatus.STALEMATE);
+    }
+
+    /**
+     * Checks a position's status with both move generators, and that it agrees
+     * with the separate check, checkmate and stalemate queries
+     */
+    private static void checkStatus(String fen, ChessGame.GameStatus expected) {
+        for (ChessGame.MoveGeneration generation : ChessGame.MoveGeneration.values()) {
+            ChessGame game = Fen.parse(fen);
+            game.setMoveGeneration(generation);
+            ChessGame.TeamColor team = game.getTeamTurn();
+            ChessGame.TeamColor other = (team == ChessGame.TeamColor.WHITE)
+                    ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+
+            assertEquals(expected, game.status(), generation.toString());
+            boolean mated = expected == ChessGame.GameStatus.CHECKMATE;
+            boolean checked = mated || expected == ChessGame.GameStatus.CHECK
+                    || (expected == ChessGame.GameStatus.FIFTY_MOVE_RULE && game.isInCheck(team));
+            assertEquals(checked, game.isInCheck(team));
+            assertEquals(mated, game.isInCheckmate(team));
+            assertEquals(expected == ChessGame.GameStatus.STALEMATE, game.isInStalemate(team));
+            // the side not on move is never mated or stalemated by the position alone
+            assertFalse(game.isInCheckmate(other));
+            assertFalse(game.isInStalemate(other));
+            // asking again reads the same answer back
+            assertEquals(expected, game.status());
+        }
+    }
+}
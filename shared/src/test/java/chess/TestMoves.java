@@ -0,0 +1,16 @@
+package chess;
+
+/**
+ * Shorthand for writing out moves in the chess package tests
+ */
+final class TestMoves {
+
+    private TestMoves() {}
+
+    /**
+     * @return a move between two squares, given as 1-based rows and columns, with no promotion
+     */
+    static ChessMove move(int fromRow, int fromCol, int toRow, int toCol) {
+        return new ChessMove(new ChessPosition(fromRow, fromCol), new ChessPosition(toRow, toCol), null);
+    }
+}
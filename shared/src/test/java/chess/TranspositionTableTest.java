@@ -0,0 +1,120 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TranspositionTableTest {
+
+    @Test
+    public void storedResultComesBack() {
+        TranspositionTable table = new TranspositionTable(1);
+        long key = new ChessGame().positionKey();
+        int move = PackedMove.of(12, 28);
+
+        table.store(key, move, -250, 7, TranspositionTable.LOWER);
+        long entry = table.probe(key);
+
+        assertEquals(move, TranspositionTable.move(entry));
+        assertEquals(-250, TranspositionTable.score(entry));
+        assertEquals(7, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.LOWER, TranspositionTable.bound(entry));
+    }
+
+    @Test
+    public void otherPositionInSlotIsAMiss() {
+        TranspositionTable table = new TranspositionTable(1);
+        long key = new ChessGame().positionKey();
+        // same slot, different position
+        long other = key + table.capacity();
+
+        assertEquals(0, table.probe(key));
+        table.store(other, 0, 10, 1, TranspositionTable.EXACT);
+        assertEquals(0, table.probe(key));
+        assertNotEquals(0, table.probe(other));
+    }
+
+    @Test
+    public void deepResultsOutliveShallowOnes() {
+        TranspositionTable table = new TranspositionTable(1);
+        long key = new ChessGame().positionKey();
+        // keys a multiple of the bucket count apart share a bucket
+        long step = table.capacity() / 4;
+        for (int i = 0; i < 4; i++) {
+            table.store(key + i * step, 0, 0, 10 - i, TranspositionTable.EXACT);
+        }
+
+        table.store(key + 4 * step, 0, 0, 1, TranspositionTable.EXACT);
+        assertNotEquals(0, table.probe(key + 4 * step));
+        // the shallowest of the full bucket made way
+        assertEquals(0, table.probe(key + 3 * step));
+        for (int i = 0; i < 3; i++) {
+            assertNotEquals(0, table.probe(key + i * step));
+        }
+    }
+
+    @Test
+    public void oldResultsMakeWay() {
+        TranspositionTable table = new TranspositionTable(1);
+        long key = new ChessGame().positionKey();
+        long step = table.capacity() / 4;
+        for (int i = 0; i < 4; i++) {
+            table.store(key + i * step, 0, 0, 10, TranspositionTable.EXACT);
+        }
+        for (int i = 0; i < 3; i++) {
+            table.newSearch();
+        }
+        assertEquals(0, table.usage());
+
+        table.store(key + 4 * step, 0, 0, 1, TranspositionTable.EXACT);
+        assertNotEquals(0, table.probe(key + 4 * step));
+        assertEquals(3, count(table, key, step, 4));
+    }
+
+    @Test
+    public void generationWrapEmptiesTable() {
+        TranspositionTable table = new TranspositionTable(1);
+        long key = new ChessGame().positionKey();
+        table.store(key, 0, 0, 10, TranspositionTable.EXACT);
+        for (int i = 0; i < 63; i++) {
+            table.newSearch();
+        }
+        assertNotEquals(0, table.probe(key));
+
+        // one more search and the entry would look as young as the new search's
+        table.newSearch();
+        assertEquals(0, table.probe(key));
+        assertEquals(0, table.usage());
+    }
+
+    @Test
+    public void sameKeyKeepsBestMove() {
+        TranspositionTable table = new TranspositionTable(1);
+        long key = new ChessGame().positionKey();
+        int move = PackedMove.of(12, 28);
+
+        table.store(key, move, 30, 4, TranspositionTable.LOWER);
+        table.store(key, 0, -20, 5, TranspositionTable.UPPER);
+        long entry = table.probe(key);
+
+        assertEquals(move, TranspositionTable.move(entry));
+        assertEquals(5, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.UPPER, TranspositionTable.bound(entry));
+    }
+
+    @Test
+    public void sizedByMemory() {
+        assertEquals(1 << 16, new TranspositionTable(1).capacity());
+        assertEquals(1 << 19, new TranspositionTable(12).capacity());
+    }
+
+    private static int count(TranspositionTable table, long key, long step, int keys) {
+        int found = 0;
+        for (int i = 0; i < keys; i++) {
+            if (table.probe(key + i * step) != 0) {
+                found++;
+            }
+        }
+        return found;
+    }
+}